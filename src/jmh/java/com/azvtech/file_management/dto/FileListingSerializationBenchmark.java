@@ -0,0 +1,86 @@
+package com.azvtech.file_management.dto;
+
+import com.azvtech.file_management.dto.response.FilePageDto;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.ProcessingJob;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * JSON encoding of file listings, as a {@link FilePageDto} page and as the
+ * newline-delimited stream of {@code GET /api/v1/file?format=ndjson}. Run with
+ * {@code -t} above 1 to see how encoding scales across request threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileListingSerializationBenchmark {
+
+    @Param({"20", "100", "1000"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private FilePageDto page;
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the ObjectMapper Spring Boot configures for the controllers
+        writer = Jackson2ObjectMapperBuilder.json().build()
+                .writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        List<FileMetadata> items = IntStream.range(0, pageSize)
+                .mapToObj(FileListingSerializationBenchmark::metadata)
+                .toList();
+        page = new FilePageDto(items, "Njg1ZTNhYjJjMWQ0ZTUwMDAxYjJjM2Q0");
+    }
+
+    @Benchmark
+    public void page() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), page);
+    }
+
+    @Benchmark
+    public void ndjson() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        for (FileMetadata item : page.items()) {
+            writer.writeValue(out, item);
+            out.write('\n');
+        }
+    }
+
+    private static FileMetadata metadata(int i) {
+        return FileMetadata.builder()
+                .id("685e3ab2c1d4e50001b2%04x".formatted(i))
+                .originalName("document-%d.pdf".formatted(i))
+                .gridFsId("685e3ab2c1d4e50001c3%04x".formatted(i))
+                .contentType("application/pdf")
+                .size(1024L * (i + 1))
+                .checksum("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+                .uploadDate(LocalDateTime.of(2025, 6, 1, 12, 0).plusMinutes(i))
+                .jobs(Map.of(ProcessingJob.Type.VERIFY_CHECKSUM, ProcessingJob.Status.SUCCEEDED))
+                .build();
+    }
+}
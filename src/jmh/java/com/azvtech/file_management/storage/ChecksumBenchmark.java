@@ -0,0 +1,80 @@
+package com.azvtech.file_management.storage;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SHA-256 of an upload: the original {@code calculateChecksum}, which buffered the whole
+ * file before digesting it, against digesting while streaming, bare and through
+ * {@link UploadStream} as uploads are stored today.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ChecksumBenchmark {
+
+    @Param({"65536", "1048576", "16777216"})
+    public int size;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+    }
+
+    /**
+     * {@code calculateChecksum} as it was written before uploads were streamed.
+     */
+    @Benchmark
+    public String bufferedDigest() throws IOException, NoSuchAlgorithmException {
+        try (InputStream is = new ByteArrayInputStream(content)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashBytes = digest.digest(IOUtils.toByteArray(is));
+            return Hex.encodeHexString(hashBytes);
+        }
+    }
+
+    @Benchmark
+    public String streamingDigest() throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream is = new DigestInputStream(new ByteArrayInputStream(content), digest)) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    @Benchmark
+    public String uploadStream() throws IOException {
+        try (var upload = new UploadStream(new ByteArrayInputStream(content), 8 * 1024, head -> {
+        })) {
+            upload.transferTo(OutputStream.nullOutputStream());
+            return upload.checksum();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.StorageProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * GridFS store and read throughput through {@link GridFsService}, against a real
+ * MongoDB. One operation stores or reads {@code concurrency} files of {@code size}
+ * bytes at once; the {@code files} and {@code bytes} counters give the rates per file
+ * and per byte.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class GridFsServiceBenchmark {
+
+    @Param({"65536", "1048576", "8388608"})
+    public int size;
+
+    @Param({"1", "8"})
+    public int concurrency;
+
+    /**
+     * Files and bytes moved, reported by JMH as rates next to the operation rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transferred {
+        public long files;
+        public long bytes;
+
+        void add(int count, long size) {
+            files += count;
+            bytes += count * size;
+        }
+    }
+
+    private MongoStandIn mongo;
+    private GridFsService gridFsService;
+    private ExecutorService executor;
+    private byte[] content;
+    private String storedId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mongo = new MongoStandIn("file-management-bench");
+        StorageProperties properties = new Binder(new MapConfigurationPropertySource(Map.of()))
+                .bindOrCreate("storage", StorageProperties.class);
+        gridFsService = new GridFsService(mongo.gridFsTemplate, mongo.mongoTemplate,
+                new GridFsChunkPolicy(properties), properties, new StorageMetrics(new SimpleMeterRegistry()),
+                ObservationRegistry.NOOP);
+        gridFsService.ensureIndexes();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        storedId = gridFsService.storeFile(new ByteArrayInputStream(content), "fixture.bin",
+                "application/octet-stream", size);
+    }
+
+    /**
+     * Keeps the database to the read fixture so stores do not pile up across iterations.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteStored() {
+        mongo.gridFsTemplate.delete(new Query(where("_id").ne(new ObjectId(storedId))));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+        mongo.close();
+    }
+
+    @Benchmark
+    public void store(Transferred transferred) throws Exception {
+        runConcurrently(() -> gridFsService.storeFile(new ByteArrayInputStream(content), "bench.bin",
+                "application/octet-stream", size));
+        transferred.add(concurrency, size);
+    }
+
+    @Benchmark
+    public void read(Transferred transferred) throws Exception {
+        runConcurrently(() -> {
+            try (InputStream in = gridFsService.getFileStream(storedId)) {
+                return in.transferTo(OutputStream.nullOutputStream());
+            }
+        });
+        transferred.add(concurrency, size);
+    }
+
+    private void runConcurrently(Callable<?> task) throws InterruptedException, ExecutionException {
+        List<Future<?>> running = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            running.add(executor.submit(task));
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.azvtech.file_management.storage;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+
+/**
+ * MongoDB for benchmarks: the server at {@code -Djmh.mongodb.uri} when given, otherwise
+ * a throwaway container. Each instance works in its own database, dropped on close.
+ */
+final class MongoStandIn implements AutoCloseable {
+
+    private static final String URI_PROPERTY = "jmh.mongodb.uri";
+    private static final String IMAGE = "mongo:7.0";
+
+    private final MongoDBContainer container;
+    private final MongoClient client;
+    private final String database;
+    final MongoTemplate mongoTemplate;
+    final GridFsTemplate gridFsTemplate;
+
+    MongoStandIn(String database) {
+        String uri = System.getProperty(URI_PROPERTY);
+        if (uri == null || uri.isBlank()) {
+            container = new MongoDBContainer(IMAGE);
+            container.start();
+            uri = container.getConnectionString();
+        } else {
+            container = null;
+        }
+        this.client = MongoClients.create(uri);
+        this.database = database;
+        var factory = new SimpleMongoClientDatabaseFactory(client, database);
+        this.mongoTemplate = new MongoTemplate(factory);
+        this.gridFsTemplate = new GridFsTemplate(factory, mongoTemplate.getConverter());
+    }
+
+    @Override
+    public void close() {
+        try {
+            client.getDatabase(database).drop();
+            client.close();
+        } finally {
+            if (container != null) {
+                container.stop();
+            }
+        }
+    }
+}
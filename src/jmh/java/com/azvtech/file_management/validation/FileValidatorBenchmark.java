@@ -0,0 +1,74 @@
+package com.azvtech.file_management.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the checks every upload goes through before and while it is written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileValidatorBenchmark {
+
+    @Param({"image/jpeg", "image/png", "application/pdf"})
+    public String contentType;
+
+    private final FileValidator validator = new FileValidator(
+            Set.of("image/jpeg", "image/png", "application/pdf"),
+            Set.of("jpg", "jpeg", "png", "pdf"),
+            50L * 1024 * 1024);
+
+    private String filename;
+    private MultipartFile file;
+    private byte[] head;
+
+    @Setup
+    public void setUp() {
+        byte[] signature = switch (contentType) {
+            case "image/jpeg" -> new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0};
+            case "image/png" -> new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+            default -> "%PDF-1.7\n".getBytes();
+        };
+        filename = "document." + switch (contentType) {
+            case "image/jpeg" -> "jpg";
+            case "image/png" -> "png";
+            default -> "pdf";
+        };
+        head = Arrays.copyOf(signature, FileValidator.CONTENT_HEAD_SIZE);
+        file = new MockMultipartFile("file", filename, contentType, head);
+    }
+
+    @Benchmark
+    public void validateDeclared() {
+        validator.validate(filename, contentType, 1024 * 1024);
+    }
+
+    @Benchmark
+    public void validateMultipart() {
+        validator.validate(file);
+    }
+
+    @Benchmark
+    public void validateContent() {
+        validator.validateContent(contentType, head);
+    }
+}
@@ -0,0 +1,27 @@
+package com.azvtech.file_management.loadtest;
+
+/**
+ * Operations the harness drives, named as in {@code -Dloadtest.mix}.
+ */
+enum Endpoint {
+    UPLOAD("POST /api/v1/file"),
+    BATCH("POST /api/v1/file/batch"),
+    DOWNLOAD("GET /api/v1/file/{name}"),
+    RANGE("GET /api/v1/file/{name} (Range)"),
+    LIST("GET /api/v1/file"),
+    DELETE("DELETE /api/v1/file/{name}");
+
+    final String request;
+
+    Endpoint(String request) {
+        this.request = request;
+    }
+
+    String key() {
+        return name().toLowerCase();
+    }
+
+    static Endpoint of(String key) {
+        return valueOf(key.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,60 @@
+package com.azvtech.file_management.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and volume of one endpoint in one phase. Latencies of successful requests are
+ * kept in microseconds; failures are counted by HTTP status, {@code 0} when no response
+ * came back.
+ */
+final class EndpointStats {
+
+    private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+    private final LongAdder bytes = new LongAdder();
+    private final Map<Integer, LongAdder> failures = new ConcurrentHashMap<>();
+
+    void succeeded(long latencyNanos, long transferred) {
+        latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), latency.getHighestTrackableValue()));
+        bytes.add(transferred);
+    }
+
+    void failed(int status) {
+        failures.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    Histogram latency() {
+        return latency;
+    }
+
+    long requests() {
+        return latency.getTotalCount() + failureCount();
+    }
+
+    long failureCount() {
+        return failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    Map<Integer, Long> failuresByStatus() {
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        failures.forEach((status, count) -> byStatus.put(status, count.sum()));
+        return byStatus;
+    }
+
+    long bytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Latency at {@code percentile}, in milliseconds.
+     */
+    double latencyMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
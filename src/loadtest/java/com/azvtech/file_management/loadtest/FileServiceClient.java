@@ -0,0 +1,279 @@
+package com.azvtech.file_management.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends one request per call to the file API and keeps track of the files stored, so
+ * downloads and deletes target files that exist. Uploads are PDFs of a size drawn from
+ * the configured distribution, each with unique content so none is deduplicated.
+ */
+final class FileServiceClient {
+
+    private static final long MAX_BATCH_BYTES = 48L * 1024 * 1024;
+    private static final int RANGE_LENGTH = 64 * 1024;
+    private static final byte[] PDF_HEADER = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The endpoint a request actually went to, which differs from the one drawn when
+     * there was no stored file to read or delete, and the bytes sent or received.
+     */
+    record Outcome(Endpoint endpoint, long bytes) {
+    }
+
+    static final class UnexpectedStatusException extends IOException {
+        final int status;
+
+        UnexpectedStatusException(int status) {
+            super("HTTP " + status);
+            this.status = status;
+        }
+    }
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final URI files;
+    private final WeightedChoice<Long> sizes;
+    private final int batchFiles;
+    private final StoredFiles stored = new StoredFiles();
+    private final AtomicLong sequence = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Random bytes the uploads are cut from, as long as the largest size.
+     */
+    private final byte[] filler;
+
+    FileServiceClient(URI baseUri, LoadSettings settings) {
+        this.files = baseUri.resolve("/api/v1/file");
+        this.sizes = settings.sizes();
+        this.batchFiles = settings.batchFiles();
+        long largest = sizes.values().stream().mapToLong(Long::longValue).max().orElseThrow();
+        this.filler = new byte[(int) largest];
+        new Random(42).nextBytes(filler);
+    }
+
+    int storedFiles() {
+        return stored.size();
+    }
+
+    /**
+     * @throws RequestException if the request failed or got an unexpected status
+     */
+    Outcome execute(Endpoint endpoint, Random random) {
+        return switch (endpoint) {
+            case UPLOAD -> upload(random);
+            case BATCH -> batch(random);
+            case DOWNLOAD -> stored.pick(random)
+                    .map(file -> download(file, random, false))
+                    .orElseGet(() -> upload(random));
+            case RANGE -> stored.pick(random)
+                    .map(file -> download(file, random, true))
+                    .orElseGet(() -> upload(random));
+            case LIST -> list();
+            case DELETE -> stored.take(random).map(this::delete).orElseGet(() -> upload(random));
+        };
+    }
+
+    Outcome upload(Random random) {
+        Upload upload = newUpload(random);
+        var body = new Multipart();
+        body.add("file", upload);
+        send(HttpRequest.newBuilder(files)
+                .header("Content-Type", body.contentType())
+                .POST(body.publisher()), 200);
+        stored.add(upload);
+        return new Outcome(Endpoint.UPLOAD, upload.size());
+    }
+
+    private Outcome batch(Random random) {
+        var body = new Multipart();
+        List<Upload> uploads = new ArrayList<>();
+        long total = 0;
+        while (uploads.size() < batchFiles) {
+            Upload upload = newUpload(random);
+            if (!uploads.isEmpty() && total + upload.size() > MAX_BATCH_BYTES) {
+                break;
+            }
+            uploads.add(upload);
+            body.add("files", upload);
+            total += upload.size();
+        }
+        send(HttpRequest.newBuilder(URI.create(files + "/batch"))
+                .header("Content-Type", body.contentType())
+                .POST(body.publisher()), 200);
+        uploads.forEach(stored::add);
+        return new Outcome(Endpoint.BATCH, total);
+    }
+
+    private Outcome download(Upload file, Random random, boolean ranged) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(fileUri(file)).GET();
+        if (ranged) {
+            long start = file.size() > RANGE_LENGTH ? random.nextLong(file.size() - RANGE_LENGTH) : 0;
+            long end = Math.min(file.size(), start + RANGE_LENGTH) - 1;
+            request.header("Range", "bytes=%d-%d".formatted(start, end));
+        }
+        long received = send(request, ranged ? 206 : 200);
+        return new Outcome(ranged ? Endpoint.RANGE : Endpoint.DOWNLOAD, received);
+    }
+
+    private Outcome list() {
+        long received = send(HttpRequest.newBuilder(URI.create(files + "?limit=100")).GET(), 200);
+        return new Outcome(Endpoint.LIST, received);
+    }
+
+    private Outcome delete(Upload file) {
+        send(HttpRequest.newBuilder(fileUri(file)).DELETE(), 200);
+        return new Outcome(Endpoint.DELETE, 0);
+    }
+
+    /**
+     * @return the bytes of the response body
+     */
+    private long send(HttpRequest.Builder request, int expectedStatus) {
+        try {
+            HttpResponse<InputStream> response = http.send(request.timeout(Duration.ofMinutes(2)).build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                long received = body.transferTo(OutputStream.nullOutputStream());
+                if (response.statusCode() != expectedStatus) {
+                    throw new UnexpectedStatusException(response.statusCode());
+                }
+                return received;
+            }
+        } catch (IOException e) {
+            throw new RequestException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestException(new IOException("Interrupted", e));
+        }
+    }
+
+    private Upload newUpload(Random random) {
+        String name = "load-%s-%d.pdf".formatted(runId, sequence.incrementAndGet());
+        return new Upload(name, Math.max(sizes.next(random), 256));
+    }
+
+    private URI fileUri(Upload file) {
+        return URI.create(files + "/" + URLEncoder.encode(file.name(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A failed request; the cause is an {@link UnexpectedStatusException} when the
+     * service answered.
+     */
+    static final class RequestException extends RuntimeException {
+        RequestException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    private record Upload(String name, long size) {
+    }
+
+    /**
+     * A {@code multipart/form-data} body whose file contents are slices of
+     * {@link #filler} behind a PDF header and the file name, which makes them unique.
+     */
+    private final class Multipart {
+        private final String boundary = "load-" + Long.toHexString(System.nanoTime());
+        private final List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+
+        void add(String field, Upload upload) {
+            byte[] unique = (upload.name() + "\n").getBytes(StandardCharsets.US_ASCII);
+            int fillerLength = (int) (upload.size() - PDF_HEADER.length - unique.length);
+            parts.add(ascii("--%s\r\nContent-Disposition: form-data; name=\"%s\"; filename=\"%s\"\r\n"
+                    .formatted(boundary, field, upload.name()) + "Content-Type: application/pdf\r\n\r\n"));
+            parts.add(HttpRequest.BodyPublishers.ofByteArray(PDF_HEADER));
+            parts.add(HttpRequest.BodyPublishers.ofByteArray(unique));
+            parts.add(HttpRequest.BodyPublishers.ofByteArray(filler, 0, fillerLength));
+            parts.add(ascii("\r\n"));
+        }
+
+        String contentType() {
+            return "multipart/form-data; boundary=" + boundary;
+        }
+
+        HttpRequest.BodyPublisher publisher() {
+            parts.add(ascii("--" + boundary + "--\r\n"));
+            return HttpRequest.BodyPublishers.concat(parts.toArray(HttpRequest.BodyPublisher[]::new));
+        }
+
+        private static HttpRequest.BodyPublisher ascii(String text) {
+            return HttpRequest.BodyPublishers.ofString(text, StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Files known to be stored, picked at random.
+     */
+    private static final class StoredFiles {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<Upload> files = new ArrayList<>();
+
+        void add(Upload file) {
+            lock.lock();
+            try {
+                files.add(file);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Optional<Upload> pick(Random random) {
+            lock.lock();
+            try {
+                return files.isEmpty() ? Optional.empty() : Optional.of(files.get(random.nextInt(files.size())));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes a random file, so no later request picks it once it is being deleted.
+         */
+        Optional<Upload> take(Random random) {
+            lock.lock();
+            try {
+                if (files.isEmpty()) {
+                    return Optional.empty();
+                }
+                int index = random.nextInt(files.size());
+                Upload last = files.removeLast();
+                return Optional.of(index == files.size() ? last : files.set(index, last));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return files.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.azvtech.file_management.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap and garbage collection of this JVM over one phase: collections and their total
+ * time from the collector MXBeans, and the peak heap use sampled every 100 ms.
+ */
+final class JvmSampler {
+
+    record JvmStats(long gcCount, long gcMillis, long heapPeakBytes, long heapUsedBytes, long heapMaxBytes) {
+    }
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final long gcCountBefore;
+    private final long gcMillisBefore;
+    private final AtomicLong heapPeak = new AtomicLong();
+    private final Thread sampler;
+
+    private JvmSampler() {
+        gcCountBefore = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+        gcMillisBefore = collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+        sampler = Thread.ofVirtual().name("load-test-heap-sampler").start(this::sample);
+    }
+
+    static JvmSampler start() {
+        return new JvmSampler();
+    }
+
+    JvmStats stop() throws InterruptedException {
+        sampler.interrupt();
+        sampler.join();
+        long heapUsed = memory.getHeapMemoryUsage().getUsed();
+        return new JvmStats(
+                collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum() - gcCountBefore,
+                collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum() - gcMillisBefore,
+                Math.max(heapPeak.get(), heapUsed),
+                heapUsed,
+                memory.getHeapMemoryUsage().getMax());
+    }
+
+    private void sample() {
+        while (!Thread.currentThread().isInterrupted()) {
+            heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.azvtech.file_management.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of a run: a table per phase on the console, {@code report.json} with every
+ * figure, and one HdrHistogram percentile distribution ({@code .hgrm}, in milliseconds)
+ * per phase and endpoint for plotting.
+ */
+final class LoadReport {
+
+    record PhaseResult(String name, Duration elapsed, Map<Endpoint, EndpointStats> endpoints,
+                       JvmSampler.JvmStats jvm) {
+    }
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private LoadReport() {
+    }
+
+    static void write(LoadSettings settings, List<PhaseResult> phases) throws IOException {
+        Path directory = settings.reportDirectory();
+        Files.createDirectories(directory);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings(settings));
+        List<Map<String, Object>> phaseReports = phases.stream().map(LoadReport::phase).toList();
+        report.put("phases", phaseReports);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), report);
+
+        for (PhaseResult phase : phases) {
+            print(System.out, phase);
+            for (var entry : phase.endpoints().entrySet()) {
+                if (entry.getValue().requests() == 0) {
+                    continue;
+                }
+                Path histogram = directory.resolve("%s-%s.hgrm".formatted(phase.name(), entry.getKey().key()));
+                try (var out = new PrintStream(Files.newOutputStream(histogram))) {
+                    entry.getValue().latency().outputPercentileDistribution(out, MICROS_PER_MILLI);
+                }
+            }
+        }
+        System.out.println("Report written to " + directory.toAbsolutePath());
+    }
+
+    private static Map<String, Object> settings(LoadSettings settings) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("target", settings.inProcess() ? "in-process" : settings.baseUrl());
+        values.put("users", settings.users());
+        values.put("rate", settings.rate());
+        values.put("warmupSeconds", settings.warmup().toSeconds());
+        values.put("durationSeconds", settings.duration().toSeconds());
+        values.put("isolatedSeconds", settings.isolatedPhase().toSeconds());
+        Map<String, Double> mix = new LinkedHashMap<>();
+        settings.mix().values().forEach(endpoint -> mix.put(endpoint.key(), settings.mix().weights().get(endpoint)));
+        values.put("mix", mix);
+        Map<Long, Double> sizes = new LinkedHashMap<>();
+        settings.sizes().values().forEach(size -> sizes.put(size, settings.sizes().weights().get(size)));
+        values.put("sizes", sizes);
+        values.put("batchFiles", settings.batchFiles());
+        return values;
+    }
+
+    private static Map<String, Object> phase(PhaseResult phase) {
+        double seconds = phase.elapsed().toNanos() / 1e9;
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("name", phase.name());
+        values.put("elapsedSeconds", seconds);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        phase.endpoints().forEach((endpoint, stats) -> {
+            if (stats.requests() == 0) {
+                return;
+            }
+            Map<String, Object> figures = new LinkedHashMap<>();
+            figures.put("request", endpoint.request);
+            figures.put("requests", stats.requests());
+            figures.put("failures", stats.failureCount());
+            figures.put("failuresByStatus", stats.failuresByStatus());
+            figures.put("throughputPerSecond", stats.requests() / seconds);
+            figures.put("bytesPerSecond", stats.bytes() / seconds);
+            Map<String, Double> latency = new LinkedHashMap<>();
+            for (double percentile : PERCENTILES) {
+                latency.put("p" + format(percentile), stats.latencyMillis(percentile));
+            }
+            latency.put("max", stats.latency().getMaxValue() / MICROS_PER_MILLI);
+            latency.put("mean", stats.latency().getMean() / MICROS_PER_MILLI);
+            figures.put("latencyMillis", latency);
+            endpoints.put(endpoint.key(), figures);
+        });
+        values.put("endpoints", endpoints);
+
+        if (phase.jvm() != null) {
+            JvmSampler.JvmStats jvm = phase.jvm();
+            values.put("jvm", Map.of(
+                    "gcCount", jvm.gcCount(),
+                    "gcMillis", jvm.gcMillis(),
+                    "heapPeakBytes", jvm.heapPeakBytes(),
+                    "heapUsedBytes", jvm.heapUsedBytes(),
+                    "heapMaxBytes", jvm.heapMaxBytes()));
+        }
+        return values;
+    }
+
+    private static void print(PrintStream out, PhaseResult phase) {
+        double seconds = phase.elapsed().toNanos() / 1e9;
+        out.printf("%n== %s (%.1fs) ==%n", phase.name(), seconds);
+        out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "MB/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        phase.endpoints().forEach((endpoint, stats) -> {
+            if (stats.requests() == 0) {
+                return;
+            }
+            out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint.key(), stats.requests(), stats.failureCount(), stats.requests() / seconds,
+                    stats.bytes() / seconds / (1024 * 1024), stats.latencyMillis(50), stats.latencyMillis(99),
+                    stats.latencyMillis(99.9), stats.latency().getMaxValue() / MICROS_PER_MILLI);
+        });
+        if (phase.jvm() != null) {
+            JvmSampler.JvmStats jvm = phase.jvm();
+            out.printf("GC: %d collections, %d ms; heap peak %d MB of %d MB%n", jvm.gcCount(), jvm.gcMillis(),
+                    jvm.heapPeakBytes() / (1024 * 1024), jvm.heapMaxBytes() / (1024 * 1024));
+        }
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Long.toString((long) percentile) : Double.toString(percentile);
+    }
+}
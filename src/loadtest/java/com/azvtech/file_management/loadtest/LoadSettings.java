@@ -0,0 +1,61 @@
+package com.azvtech.file_management.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Harness settings, read from {@code -Dloadtest.*} system properties.
+ *
+ * @param baseUrl        service to drive; when blank the service is started in this JVM
+ * @param mongoUri       MongoDB for the in-process service; when blank a container is started
+ * @param users          concurrent virtual users, each sending one request at a time
+ * @param rate           target requests per second across all users, or 0 to send
+ *                       back-to-back; with a rate, latency is measured from each request's
+ *                       scheduled start, so a stalled service is not under-reported
+ * @param isolatedPhase  length of a run of each endpoint on its own after the mixed run,
+ *                       or zero to skip them; their JVM figures are per endpoint
+ */
+record LoadSettings(
+        String baseUrl,
+        String mongoUri,
+        Duration warmup,
+        Duration duration,
+        Duration isolatedPhase,
+        int users,
+        double rate,
+        WeightedChoice<Endpoint> mix,
+        WeightedChoice<Long> sizes,
+        int seedFiles,
+        int batchFiles,
+        Path reportDirectory
+) {
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                property("base-url", ""),
+                property("mongodb.uri", ""),
+                DurationStyle.detectAndParse(property("warmup", "10s")),
+                DurationStyle.detectAndParse(property("duration", "60s")),
+                DurationStyle.detectAndParse(property("isolated", "0s")),
+                Integer.parseInt(property("users", "16")),
+                Double.parseDouble(property("rate", "0")),
+                WeightedChoice.parse(property("mix", "upload=20,batch=5,download=40,range=15,list=15,delete=5"),
+                        Endpoint::of),
+                WeightedChoice.parse(property("sizes", "16KB=50,256KB=30,4MB=15,32MB=5"),
+                        size -> DataSize.parse(size).toBytes()),
+                Integer.parseInt(property("seed-files", "50")),
+                Integer.parseInt(property("batch-files", "4")),
+                Path.of(property("report-dir", "target/load-test")));
+    }
+
+    boolean inProcess() {
+        return baseUrl.isBlank();
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty("loadtest." + name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,175 @@
+package com.azvtech.file_management.loadtest;
+
+import com.azvtech.file_management.FileManagementApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of the file API. Seeds the service with files, warms it up, then
+ * runs the configured endpoint mix for the measured duration and, optionally, each
+ * endpoint on its own. See {@link LoadSettings} for the {@code -Dloadtest.*} options
+ * and {@link LoadReport} for the output.
+ * <p>
+ * By default the service runs in this JVM against a throwaway MongoDB container, so the
+ * heap and GC figures cover the service and the load generator together. With
+ * {@code -Dloadtest.base-url} an already running service is driven instead and no JVM
+ * figures are reported.
+ */
+public final class LoadTest {
+
+    private static final String DATABASE = "file-management-loadtest";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        try (Target target = Target.start(settings)) {
+            var client = new FileServiceClient(target.baseUri(), settings);
+            seed(client, settings);
+
+            run("warmup", settings.mix(), settings.warmup(), client, settings);
+            List<LoadReport.PhaseResult> phases = new ArrayList<>();
+            phases.add(run("mixed", settings.mix(), settings.duration(), client, settings));
+            if (!settings.isolatedPhase().isZero()) {
+                for (Endpoint endpoint : settings.mix().values()) {
+                    phases.add(run(endpoint.key(), new WeightedChoice<>(Map.of(endpoint, 1.0)),
+                            settings.isolatedPhase(), client, settings));
+                }
+            }
+            LoadReport.write(settings, phases);
+        }
+    }
+
+    private static void seed(FileServiceClient client, LoadSettings settings) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> uploads = new ArrayList<>();
+            for (int i = 0; i < settings.seedFiles(); i++) {
+                Random random = new Random(i);
+                uploads.add(executor.submit(() -> client.upload(random)));
+            }
+            for (Future<?> upload : uploads) {
+                upload.get();
+            }
+        }
+        System.out.printf("Seeded %d files%n", client.storedFiles());
+    }
+
+    private static LoadReport.PhaseResult run(String name, WeightedChoice<Endpoint> mix, Duration length,
+                                              FileServiceClient client, LoadSettings settings)
+            throws InterruptedException {
+        System.out.printf("Running %s for %s%n", name, length);
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+
+        JvmSampler jvm = JvmSampler.start();
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        // With a target rate each user sends on a fixed schedule, staggered across users
+        long interval = settings.rate() > 0 ? (long) (settings.users() * 1e9 / settings.rate()) : 0;
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.users(); i++) {
+                long firstStart = start + interval * i / settings.users();
+                Random random = new Random();
+                users.submit(() -> user(client, mix, stats, random, firstStart, end, interval));
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        JvmSampler.JvmStats jvmStats = jvm.stop();
+        return new LoadReport.PhaseResult(name, elapsed, stats, settings.inProcess() ? jvmStats : null);
+    }
+
+    /**
+     * One virtual user: sends a request, waits for the response, repeats. Without a
+     * target rate the next request starts right away and latency is timed from the
+     * send; with one, it is timed from the scheduled start, so time spent queued behind
+     * a slow response counts as well.
+     */
+    private static void user(FileServiceClient client, WeightedChoice<Endpoint> mix,
+                             Map<Endpoint, EndpointStats> stats, Random random, long firstStart, long end,
+                             long interval) {
+        long scheduled = firstStart;
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (interval > 0) {
+                if (scheduled >= end) {
+                    return;
+                }
+                if (scheduled > now) {
+                    LockSupport.parkNanos(scheduled - now);
+                }
+            } else if (now >= end) {
+                return;
+            }
+
+            long begin = interval > 0 ? scheduled : System.nanoTime();
+            Endpoint endpoint = mix.next(random);
+            try {
+                FileServiceClient.Outcome outcome = client.execute(endpoint, random);
+                stats.get(outcome.endpoint()).succeeded(System.nanoTime() - begin, outcome.bytes());
+            } catch (FileServiceClient.RequestException e) {
+                int status = e.getCause() instanceof FileServiceClient.UnexpectedStatusException unexpected
+                        ? unexpected.status : 0;
+                stats.get(endpoint).failed(status);
+            }
+            scheduled += interval;
+        }
+    }
+
+    /**
+     * The service under test, and the MongoDB it was started with.
+     */
+    private record Target(URI baseUri, ConfigurableApplicationContext context, MongoDBContainer mongo)
+            implements AutoCloseable {
+
+        static Target start(LoadSettings settings) {
+            if (!settings.inProcess()) {
+                return new Target(URI.create(settings.baseUrl()), null, null);
+            }
+
+            MongoDBContainer mongo = null;
+            String mongoUri = settings.mongoUri();
+            if (mongoUri.isBlank()) {
+                mongo = new MongoDBContainer("mongo:7.0");
+                mongo.start();
+                mongoUri = mongo.getReplicaSetUrl(DATABASE);
+            }
+            ConfigurableApplicationContext context = SpringApplication.run(FileManagementApplication.class,
+                    "--server.port=0",
+                    "--spring.data.mongodb.uri=" + mongoUri,
+                    "--spring.data.mongodb.database=" + DATABASE,
+                    "--spring.main.banner-mode=off",
+                    "--logging.level.com.azvtech=WARN");
+            String port = context.getEnvironment().getProperty("local.server.port");
+            return new Target(URI.create("http://localhost:" + port), context, mongo);
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (context != null) {
+                    context.close();
+                }
+            } finally {
+                if (mongo != null) {
+                    mongo.stop();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.azvtech.file_management.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Random pick among values in proportion to their weights, parsed from
+ * {@code key=weight,key=weight} as used by the mix and size distributions.
+ */
+final class WeightedChoice<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private final double[] cumulative;
+    private final Map<T, Double> weights;
+
+    WeightedChoice(Map<T, Double> weights) {
+        this.weights = Map.copyOf(weights);
+        this.cumulative = new double[weights.size()];
+        double total = 0;
+        for (Map.Entry<T, Double> entry : weights.entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("Negative weight for " + entry.getKey());
+            }
+            total += entry.getValue();
+            values.add(entry.getKey());
+            cumulative[values.size() - 1] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+    }
+
+    static <T> WeightedChoice<T> parse(String spec, Function<String, T> key) {
+        Map<T, Double> weights = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            String[] pair = entry.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected key=weight, got '" + entry + "'");
+            }
+            weights.merge(key.apply(pair[0].trim()), Double.parseDouble(pair[1].trim()), Double::sum);
+        }
+        return new WeightedChoice<>(weights);
+    }
+
+    T next(Random random) {
+        double point = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int i = 0; i < cumulative.length; i++) {
+            if (point < cumulative[i]) {
+                return values.get(i);
+            }
+        }
+        return values.getLast();
+    }
+
+    /**
+     * Values that can be picked, in the order given.
+     */
+    List<T> values() {
+        return values.stream().filter(value -> weights.get(value) > 0).toList();
+    }
+
+    Map<T, Double> weights() {
+        return weights;
+    }
+}
@@ -0,0 +1,43 @@
+package com.azvtech.file_management.config;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches a content type against settings keyed by content type, where a key is either
+ * an exact type or a {@code type/*} wildcard. An exact key wins over a wildcard.
+ */
+public final class ContentTypeMatcher {
+
+    private ContentTypeMatcher() {
+    }
+
+    /**
+     * The value for {@code contentType}, or {@code null} if neither it nor its wildcard
+     * has one.
+     */
+    public static <T> T lookup(Map<String, T> byType, String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        T exact = byType.get(contentType);
+        if (exact != null) {
+            return exact;
+        }
+        String wildcard = wildcard(contentType);
+        return wildcard == null ? null : byType.get(wildcard);
+    }
+
+    public static boolean matches(Set<String> types, String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String wildcard = wildcard(contentType);
+        return types.contains(contentType) || (wildcard != null && types.contains(wildcard));
+    }
+
+    private static String wildcard(String contentType) {
+        int slash = contentType.indexOf('/');
+        return slash > 0 ? contentType.substring(0, slash) + "/*" : null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.azvtech.file_management.config;
+
+import com.azvtech.file_management.repository.SlowQueryMonitor;
+import com.azvtech.file_management.storage.MongoCommandObserver;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQueryMonitorCustomizer(SlowQueryMonitor slowQueryMonitor) {
+        return settings -> settings.addCommandListener(slowQueryMonitor);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer commandObserverCustomizer(MongoCommandObserver commandObserver) {
+        return settings -> settings.addCommandListener(commandObserver);
+    }
+}
@@ -0,0 +1,46 @@
+package com.azvtech.file_management.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the reactive MongoDB driver out of the servlet mode. Both drivers are on the
+ * classpath for the two serving modes, and Spring Boot would otherwise connect a
+ * reactive {@code MongoClient} next to the blocking one even though nothing in the
+ * servlet mode uses it. The reactive mode keeps the blocking client for index
+ * provisioning and the stats endpoints; its blocking storage beans are left out by
+ * their {@code @ConditionalOnWebApplication}.
+ */
+public class ServingModeEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+
+    static final List<String> REACTIVE_MONGO_AUTO_CONFIGURATIONS = List.of(
+            "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration");
+
+    private static final String PROPERTY_SOURCE_NAME = "servingMode";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if ("reactive".equalsIgnoreCase(environment.getProperty("spring.main.web-application-type"))) {
+            return;
+        }
+        Set<String> excluded = new LinkedHashSet<>(Binder.get(environment)
+                .bind(EXCLUDE_PROPERTY, Bindable.listOf(String.class))
+                .orElse(List.of()));
+        excluded.addAll(REACTIVE_MONGO_AUTO_CONFIGURATIONS);
+        environment.getPropertySources().addFirst(new MapPropertySource(PROPERTY_SOURCE_NAME,
+                Map.of(EXCLUDE_PROPERTY, String.join(",", excluded))));
+    }
+}
@@ -0,0 +1,34 @@
+package com.azvtech.file_management.config;
+
+import com.azvtech.file_management.storage.StorageMetrics;
+import com.azvtech.file_management.validation.FileValidator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+public class StorageConfig {
+
+    /**
+     * Time source of leases and expiry in the job queue and upload sessions.
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+
+    /**
+     * Upload rules shared by every way of storing a file, so they count their rejections
+     * in one set of meters.
+     */
+    @Bean
+    public FileValidator fileValidator(StorageProperties storageProperties, StorageMetrics metrics) {
+        return new FileValidator(
+                storageProperties.allowedMimeTypes(),
+                storageProperties.allowedExtensions(),
+                storageProperties.maxFileSizeMb() * 1024 * 1024,
+                metrics.registry()
+        );
+    }
+}
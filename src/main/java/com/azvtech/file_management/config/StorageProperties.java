@@ -1,8 +1,13 @@
 package com.azvtech.file_management.config;
 
+import com.azvtech.file_management.model.ProcessingJob;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @ConfigurationProperties(prefix = "storage")
@@ -17,6 +22,283 @@ public record StorageProperties(
         long maxFileSizeMb,
 
         @DefaultValue("false")
-        boolean allowDuplicateFiles
+        boolean allowDuplicateFiles,
 
-) {}
\ No newline at end of file
+        @DefaultValue
+        Download download,
+
+        @DefaultValue
+        MetadataCache metadataCache,
+
+        @DefaultValue
+        ContentCache contentCache,
+
+        @DefaultValue
+        Batch batch,
+
+        @DefaultValue
+        MetadataIndexes metadataIndexes,
+
+        @DefaultValue
+        VirtualThreads virtualThreads,
+
+        @DefaultValue
+        GridFs gridFs,
+
+        @DefaultValue
+        Compression compression,
+
+        @DefaultValue
+        Thumbnails thumbnails,
+
+        @DefaultValue
+        Jobs jobs,
+
+        @DefaultValue
+        UploadSessions uploadSessions,
+
+        @DefaultValue
+        Tracing tracing
+
+) {
+    /**
+     * HTTP caching of downloads. {@code cacheControl} maps a content type, exact or as a
+     * {@code type/*} wildcard, to the Cache-Control header sent with it.
+     * {@code prefetchChunks} GridFS chunks are fetched per query while streaming, with
+     * queries running ahead of the client up to {@code readAheadLimit} per download.
+     */
+    public record Download(
+            @DefaultValue("no-cache")
+            String defaultCacheControl,
+
+            Map<String, String> cacheControl,
+
+            @DefaultValue("4")
+            int prefetchChunks,
+
+            @DefaultValue("16MB")
+            DataSize readAheadLimit
+    ) {
+        public Download {
+            cacheControl = cacheControl == null ? Map.of() : Map.copyOf(cacheControl);
+        }
+    }
+
+    /**
+     * In-process cache of file metadata in front of MongoDB. Entries are refreshed on
+     * store and delete; {@code timeToLive} bounds staleness from writes on other nodes.
+     */
+    public record MetadataCache(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("10000")
+            long maximumSize,
+
+            @DefaultValue("5m")
+            Duration timeToLive
+    ) {}
+
+    /**
+     * Off-heap cache for the bytes of small, frequently downloaded files, keyed by
+     * checksum. {@code capacity} is the direct memory budget shared by all entries.
+     */
+    public record ContentCache(
+            @DefaultValue("false")
+            boolean enabled,
+
+            @DefaultValue("1MB")
+            DataSize maxFileSize,
+
+            @DefaultValue("128MB")
+            DataSize capacity
+    ) {}
+
+    /**
+     * Batch uploads store up to {@code maxConcurrency} files at once, each on its own
+     * virtual thread.
+     */
+    public record Batch(
+            @DefaultValue("8")
+            int maxConcurrency
+    ) {}
+
+    /**
+     * Indexes of the metadata collection, created at startup when {@code provision} is
+     * set. Metadata commands slower than {@code slowQueryThreshold} are reported, the last
+     * {@code slowQueryHistory} of them are kept.
+     */
+    public record MetadataIndexes(
+            @DefaultValue("true")
+            boolean provision,
+
+            @DefaultValue("100ms")
+            Duration slowQueryThreshold,
+
+            @DefaultValue("100")
+            int slowQueryHistory
+    ) {}
+
+    /**
+     * Pinning detection while {@code spring.threads.virtual.enabled} is set. Virtual
+     * threads blocked on their carrier for longer than {@code pinnedThreshold} are
+     * reported, the last {@code pinnedHistory} of them are kept.
+     */
+    public record VirtualThreads(
+            @DefaultValue("20ms")
+            Duration pinnedThreshold,
+
+            @DefaultValue("20")
+            int pinnedHistory
+    ) {}
+
+    /**
+     * GridFS write layout. {@code chunkSize} maps a content type, exact or as a
+     * {@code type/*} wildcard, to its chunk size; files declared at or above
+     * {@code largeFileThreshold} use at least {@code largeFileChunkSize}. Chunks are
+     * inserted in batches of up to {@code writeBatchSize} bytes.
+     */
+    public record GridFs(
+            @DefaultValue("255KB")
+            DataSize defaultChunkSize,
+
+            Map<String, DataSize> chunkSize,
+
+            @DefaultValue("16MB")
+            DataSize largeFileThreshold,
+
+            @DefaultValue("1MB")
+            DataSize largeFileChunkSize,
+
+            @DefaultValue("4MB")
+            DataSize writeBatchSize
+    ) {
+        public GridFs {
+            chunkSize = chunkSize == null ? Map.of() : Map.copyOf(chunkSize);
+        }
+    }
+
+    /**
+     * Compression at rest for the listed content types, exact or as {@code type/*}
+     * wildcards. The first {@code sampleSize} bytes of an upload are deflated at
+     * {@code level}; the file is stored compressed only if the sample shrinks to at most
+     * {@code maxRatio} of its size. Compressed files are decoded from the start to serve
+     * a byte range, so they lose the chunk-level seeking of uncompressed ones.
+     */
+    public record Compression(
+            @DefaultValue("false")
+            boolean enabled,
+
+            Set<String> contentTypes,
+
+            @DefaultValue("64KB")
+            DataSize sampleSize,
+
+            @DefaultValue("0.9")
+            double maxRatio,
+
+            @DefaultValue("6")
+            int level
+    ) {
+        public Compression {
+            contentTypes = contentTypes == null ? Set.of() : Set.copyOf(contentTypes);
+        }
+    }
+
+    /**
+     * Resized image variants. A requested width is rounded up to the nearest of
+     * {@code widths}, so each image has a bounded set of variants. Variants are rendered
+     * by {@code workers} threads with up to {@code queueCapacity} waiting requests.
+     * Images with more than {@code maxPixels} pixels are refused before being decoded.
+     */
+    public record Thumbnails(
+            @DefaultValue({"64", "128", "256", "512", "1024"})
+            List<Integer> widths,
+
+            @DefaultValue("2")
+            int workers,
+
+            @DefaultValue("32")
+            int queueCapacity,
+
+            @DefaultValue("50000000")
+            long maxPixels
+    ) {
+        public Thumbnails {
+            widths = widths.stream().filter(width -> width > 0).sorted().distinct().toList();
+        }
+    }
+
+    /**
+     * Post-upload processing queued in MongoDB. Jobs of the listed {@code types} are
+     * queued for each stored file and run by {@code concurrency} workers per node. A
+     * running job is leased for {@code lease}; a failed attempt is retried after
+     * {@code retryBackoff}, doubled per attempt, up to {@code maxAttempts} attempts. Idle
+     * workers look for due jobs every {@code pollInterval}.
+     */
+    public record Jobs(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("THUMBNAIL")
+            Set<ProcessingJob.Type> types,
+
+            @DefaultValue("2")
+            int concurrency,
+
+            @DefaultValue("5")
+            int maxAttempts,
+
+            @DefaultValue("10s")
+            Duration retryBackoff,
+
+            @DefaultValue("5m")
+            Duration lease,
+
+            @DefaultValue("5s")
+            Duration pollInterval
+    ) {
+        public Jobs {
+            types = Set.copyOf(types);
+        }
+    }
+
+    /**
+     * Resumable uploads. Parts are {@code partSize} bytes, rounded down to a whole number
+     * of GridFS chunks; each must arrive within {@code partLease}, after which another
+     * upload of the same part may take over. A session not committed within
+     * {@code expiry} of its last part is removed with its chunks by a sweep every
+     * {@code sweepInterval}.
+     */
+    public record UploadSessions(
+            @DefaultValue("8MB")
+            DataSize partSize,
+
+            @DefaultValue("30m")
+            Duration partLease,
+
+            @DefaultValue("24h")
+            Duration expiry,
+
+            @DefaultValue("15m")
+            Duration sweepInterval
+    ) {
+    }
+
+    /**
+     * Traces of file transfers, built from the storage observations of a request. Traces
+     * slower than {@code slowThreshold} are logged, the last {@code slowHistory} of them
+     * are kept; the others are logged at debug level.
+     */
+    public record Tracing(
+            @DefaultValue("true")
+            boolean enabled,
+
+            @DefaultValue("1s")
+            Duration slowThreshold,
+
+            @DefaultValue("50")
+            int slowHistory
+    ) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.azvtech.file_management.config;
+
+import com.azvtech.file_management.dto.response.VirtualThreadStatsDto;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Watches the virtual thread scheduler when {@code spring.threads.virtual.enabled} is set.
+ * Request handling, GridFS streaming, async MVC work and batch writes then all run on
+ * virtual threads, so a virtual thread that blocks while pinned to its carrier, such as
+ * inside a {@code synchronized} block on the MongoDB driver path, takes a carrier away
+ * from every other transfer. Pinning is picked up from JFR's {@code jdk.VirtualThreadPinned}
+ * events without restarting the JVM with tracing flags.
+ */
+@Slf4j
+@Component
+public class VirtualThreadMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String SUBMIT_FAILED_EVENT = "jdk.VirtualThreadSubmitFailed";
+    private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+    private static final int STACK_DEPTH = 8;
+
+    private final boolean enabled;
+    private final Duration pinnedThreshold;
+    private final int pinnedHistory;
+
+    private final AtomicLong pinnedCount = new AtomicLong();
+    private final AtomicLong pinnedNanos = new AtomicLong();
+    private final AtomicLong submitFailedCount = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<VirtualThreadStatsDto.PinnedEvent> recentPinned = new ArrayDeque<>();
+    private RecordingStream recording;
+
+    public VirtualThreadMonitor(Environment environment, StorageProperties storageProperties) {
+        this.enabled = Threading.VIRTUAL.isActive(environment);
+        this.pinnedThreshold = storageProperties.virtualThreads().pinnedThreshold();
+        this.pinnedHistory = storageProperties.virtualThreads().pinnedHistory();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(pinnedThreshold).withStackTrace();
+        recording.enable(SUBMIT_FAILED_EVENT);
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.onEvent(SUBMIT_FAILED_EVENT, event -> {
+            submitFailedCount.incrementAndGet();
+            log.error("Virtual thread could not be scheduled: {}", event.getString("exceptionMessage"));
+        });
+        recording.startAsync();
+        log.info("Virtual threads enabled; reporting pinning longer than {}ms", pinnedThreshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    public VirtualThreadStatsDto stats() {
+        int parallelism = Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors());
+        int maxPoolSize = Integer.getInteger("jdk.virtualThreadScheduler.maxPoolSize", Math.max(parallelism, 256));
+
+        List<VirtualThreadStatsDto.PinnedEvent> recent;
+        lock.lock();
+        try {
+            recent = List.copyOf(recentPinned);
+        } finally {
+            lock.unlock();
+        }
+        return new VirtualThreadStatsDto(enabled, parallelism, maxPoolSize, carrierThreads(),
+                pinnedCount.get(), Duration.ofNanos(pinnedNanos.get()).toMillis(), submitFailedCount.get(), recent);
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCount.incrementAndGet();
+        pinnedNanos.addAndGet(event.getDuration().toNanos());
+
+        List<String> frames = event.getStackTrace() == null ? List.of()
+                : event.getStackTrace().getFrames().stream()
+                .limit(STACK_DEPTH)
+                .map(VirtualThreadMonitor::describe)
+                .toList();
+        var pinned = new VirtualThreadStatsDto.PinnedEvent(event.getStartTime(), event.getDuration().toMillis(), frames);
+        log.warn("Virtual thread pinned for {}ms at {}", pinned.durationMillis(), frames.isEmpty() ? "?" : frames.getFirst());
+
+        lock.lock();
+        try {
+            if (recentPinned.size() == pinnedHistory) {
+                recentPinned.removeFirst();
+            }
+            recentPinned.addLast(pinned);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static int carrierThreads() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getClass().getName().equals(CARRIER_THREAD_CLASS))
+                .count();
+    }
+}
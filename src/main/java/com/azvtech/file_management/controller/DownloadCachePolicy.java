@@ -0,0 +1,28 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.config.ContentTypeMatcher;
+import com.azvtech.file_management.config.StorageProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Picks the Cache-Control header for a download from its content type, preferring an
+ * exact match over a {@code type/*} wildcard over the configured default.
+ */
+@Component
+public class DownloadCachePolicy {
+
+    private final String defaultCacheControl;
+    private final Map<String, String> cacheControl;
+
+    public DownloadCachePolicy(StorageProperties storageProperties) {
+        this.defaultCacheControl = storageProperties.download().defaultCacheControl();
+        this.cacheControl = storageProperties.download().cacheControl();
+    }
+
+    public String cacheControl(String contentType) {
+        String matched = ContentTypeMatcher.lookup(cacheControl, contentType);
+        return matched != null ? matched : defaultCacheControl;
+    }
+}
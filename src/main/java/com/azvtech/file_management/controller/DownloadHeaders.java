@@ -0,0 +1,99 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.model.FileMetadata;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Download response headers derived from stored metadata, shared by the servlet and
+ * reactive controllers.
+ */
+final class DownloadHeaders {
+
+    private DownloadHeaders() {
+    }
+
+    /**
+     * Strong ETag from the content checksum, or {@code null} for files stored without one.
+     */
+    static String eTag(FileMetadata metadata) {
+        return metadata.checksum() == null ? null : "\"" + metadata.checksum() + "\"";
+    }
+
+    /**
+     * ETag of another representation of the content, such as its stored coding or a
+     * thumbnail, distinct from the file's own. A {@code null} variant is the file itself.
+     */
+    static String eTag(FileMetadata metadata, String variant) {
+        String eTag = eTag(metadata);
+        return eTag == null || variant == null ? eTag
+                : eTag.substring(0, eTag.length() - 1) + "-" + variant + "\"";
+    }
+
+    /**
+     * Content coding to send a file in: its stored {@code contentEncoding} when the
+     * request accepts it and asks for no byte range, since ranges are served over the
+     * decoded content; otherwise {@code null}, meaning decoded.
+     */
+    static String negotiateEncoding(FileMetadata metadata, HttpHeaders requestHeaders) {
+        String encoding = metadata.contentEncoding();
+        if (encoding == null || requestHeaders.containsKey(HttpHeaders.RANGE)) {
+            return null;
+        }
+        for (String accepted : requestHeaders.getValuesAsList(HttpHeaders.ACCEPT_ENCODING)) {
+            String[] parts = accepted.split(";");
+            if (parts[0].trim().equalsIgnoreCase(encoding) && !isRejected(parts)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the response of a file stored compressed as depending on Accept-Encoding.
+     */
+    static void varyByEncoding(HttpHeaders responseHeaders, FileMetadata metadata) {
+        if (metadata.contentEncoding() != null) {
+            responseHeaders.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+    }
+
+    static Instant lastModified(FileMetadata metadata) {
+        return metadata.uploadDate() == null ? Instant.EPOCH
+                : metadata.uploadDate().atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    static String contentDisposition(FileMetadata metadata, Boolean view) {
+        return Boolean.TRUE.equals(view) && isViewable(metadata.contentType()) ?
+                "inline" : "attachment; filename=\"" + metadata.originalName() + "\"";
+    }
+
+    /**
+     * Whether the parameters of an Accept-Encoding entry give it a quality of zero.
+     */
+    private static boolean isRejected(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isViewable(String contentType) {
+        return contentType != null && (
+                contentType.startsWith("image/") ||
+                        contentType.equals("application/pdf") ||
+                        contentType.startsWith("text/")
+        );
+    }
+}
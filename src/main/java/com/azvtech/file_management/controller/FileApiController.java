@@ -1,15 +1,34 @@
 package com.azvtech.file_management.controller;
 
+import com.azvtech.file_management.dto.request.FileSearchCriteria;
 import com.azvtech.file_management.dto.response.ErrorResponseDto;
+import com.azvtech.file_management.dto.response.FilePageDto;
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.exception.StorageFileNotFoundException;
 import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.FileUploadResult;
+import com.azvtech.file_management.storage.GridFsChunkResource;
+import com.azvtech.file_management.storage.StorageObservation;
 import com.azvtech.file_management.storage.StorageService;
+import com.azvtech.file_management.storage.ThumbnailService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -18,21 +37,39 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 @Validated
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1/file")
 @Tag(name = "File API", description = "File management operations")
 @RequiredArgsConstructor
 public class FileApiController {
 
+    static final String CONTENT_SHA256_HEADER = "X-Content-SHA256";
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final StorageService storageService;
+    private final ThumbnailService thumbnailService;
+    private final StreamingMultipartReader multipartReader;
+    private final DownloadCachePolicy downloadCachePolicy;
+    private final ObjectMapper objectMapper;
+    private final ObservationRegistry observationRegistry;
 
     @GetMapping("/{originalName:.+}")
     @Operation(
@@ -40,6 +77,8 @@ public class FileApiController {
             description = "Download the file or display it in the browser",
             responses = {
                     @ApiResponse(responseCode = "200", description = "File found"),
+                    @ApiResponse(responseCode = "206", description = "Requested byte range(s) of the file"),
+                    @ApiResponse(responseCode = "304", description = "File not modified since the cached copy"),
                     @ApiResponse(responseCode = "404", description = "File not found",
                             content = @Content(schema = @Schema(hidden = true)))
             },
@@ -49,24 +88,119 @@ public class FileApiController {
             })
     public ResponseEntity<Resource> downloadFile(
             @PathVariable String originalName,
-            @RequestParam(required = false) @Parameter(description = "Display in browser if true") Boolean view
+            @RequestParam(required = false) @Parameter(description = "Display in browser if true") Boolean view,
+            @RequestHeader HttpHeaders requestHeaders,
+            ServletWebRequest webRequest
             ) throws IOException {
 
+        return StorageObservation.observe(observationRegistry, StorageObservation.DOWNLOAD, observation -> {
+            StorageObservation.attribute(observation, StorageObservation.FILE_NAME, originalName);
+            return download(originalName, view, requestHeaders, webRequest, observation);
+        });
+    }
+
+    /**
+     * Answers a download from metadata, or with a resource Spring MVC streams once this
+     * returns; the chunk reads are traced by the resource's stream.
+     */
+    private ResponseEntity<Resource> download(String originalName, Boolean view, HttpHeaders requestHeaders,
+                                              ServletWebRequest webRequest, Observation observation)
+            throws IOException {
         FileMetadata metadata = storageService.findByOriginalName(originalName);
-        Resource file = storageService.loadAsResource(metadata.gridFsId());
+        StorageObservation.attribute(observation, StorageObservation.FILE_SIZE, metadata.size());
+        String encoding = DownloadHeaders.negotiateEncoding(metadata, requestHeaders);
+        String eTag = DownloadHeaders.eTag(metadata, encoding);
+        Instant lastModified = DownloadHeaders.lastModified(metadata);
+        String cacheControl = downloadCachePolicy.cacheControl(metadata.contentType());
+
+        // Answered from metadata alone; ETag and Last-Modified are set on the response
+        if (webRequest.checkNotModified(eTag, lastModified.toEpochMilli())) {
+            return ResponseEntity.status(webRequest.getResponse().getStatus())
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .headers(headers -> DownloadHeaders.varyByEncoding(headers, metadata))
+                    .build();
+        }
+
+        if (encoding != null) {
+            // Stored compressed and accepted as is: send the stored bytes, no decoding
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, DownloadHeaders.contentDisposition(metadata, view))
+                    .header(HttpHeaders.CONTENT_ENCODING, encoding)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .headers(headers -> DownloadHeaders.varyByEncoding(headers, metadata))
+                    .contentType(MediaType.parseMediaType(metadata.contentType()))
+                    .body(storageService.loadStoredResource(metadata));
+        }
+
+        Resource file = storageService.loadAsResource(metadata);
+
+        // Spring MVC serves Range requests for seekable resources as 206, single or multipart.
+        // When If-Range no longer matches, the whole file must be sent instead, which a
+        // stream-only resource does.
+        if (requestHeaders.containsKey(HttpHeaders.RANGE) && !ifRangeMatches(requestHeaders, eTag, lastModified)) {
+            file = new InputStreamResource(file.getInputStream());
+        } else if (file instanceof GridFsChunkResource chunked && requestHeaders.containsKey(HttpHeaders.RANGE)) {
+            file = forRanges(chunked, requestHeaders);
+        }
 
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        Boolean.TRUE.equals(view) && isViewable(metadata.contentType()) ?
-                                "inline" : "attachment; filename=\"" + metadata.originalName() + "\"")
+                .header(HttpHeaders.CONTENT_DISPOSITION, DownloadHeaders.contentDisposition(metadata, view))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .headers(headers -> DownloadHeaders.varyByEncoding(headers, metadata))
                 .contentType(MediaType.parseMediaType(metadata.contentType()))
                 .body(file);
     }
 
+    @GetMapping("/{originalName:.+}/thumbnail")
+    @Operation(
+            summary = "Image thumbnail",
+            description = "Resized variant of an image, at the nearest configured width at or above the requested one",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Thumbnail found or generated"),
+                    @ApiResponse(responseCode = "304", description = "Thumbnail not modified since the cached copy"),
+                    @ApiResponse(responseCode = "400", description = "File is not an image",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "404", description = "File not found",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "503", description = "Too many thumbnails being generated",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<Resource> thumbnail(
+            @PathVariable String originalName,
+            @RequestParam(name = "w", defaultValue = "256") @Min(1)
+            @Parameter(description = "Requested width in pixels") int width,
+            ServletWebRequest webRequest) {
+
+        FileMetadata metadata = storageService.findByOriginalName(originalName);
+        String eTag = DownloadHeaders.eTag(metadata, "w" + thumbnailService.variantWidth(width));
+        Instant lastModified = DownloadHeaders.lastModified(metadata);
+        String cacheControl = downloadCachePolicy.cacheControl(metadata.contentType());
+
+        if (webRequest.checkNotModified(eTag, lastModified.toEpochMilli())) {
+            return ResponseEntity.status(webRequest.getResponse().getStatus())
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+
+        ThumbnailService.Thumbnail thumbnail = thumbnailService.thumbnail(metadata, width);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .contentType(MediaType.parseMediaType(thumbnail.contentType()))
+                .body(thumbnail.content());
+    }
+
+    /**
+     * @deprecated the multipart body is buffered before the handler runs; use
+     * {@code POST /api/v1/file/stream} instead.
+     */
+    @Deprecated
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
             summary = "Upload single file",
-            description = "Upload a file to the server",
+            description = "Upload a file to the server. Deprecated: the body is buffered before it is stored, " +
+                    "use POST /api/v1/file/stream instead.",
+            deprecated = true,
             responses = {
                     @ApiResponse(responseCode = "200", description = "File uploaded successfully"),
                     @ApiResponse(responseCode = "400", description = "Invalid file",
@@ -78,7 +212,11 @@ public class FileApiController {
             })
     public ResponseEntity<?> uploadFile(
             @RequestParam("file") @Parameter(description = "File to upload") MultipartFile file) {
-        storageService.store(file);
+        StorageObservation.run(observationRegistry, StorageObservation.UPLOAD, observation -> {
+            StorageObservation.attribute(observation, StorageObservation.FILE_NAME, file.getOriginalFilename());
+            StorageObservation.attribute(observation, StorageObservation.FILE_SIZE, file.getSize());
+            storageService.store(file);
+        });
         return ResponseEntity.ok(Map.of(
                 "message", "Upload successful: " + file.getOriginalFilename(),
                 "filename", Objects.requireNonNull(file.getOriginalFilename())
@@ -86,33 +224,180 @@ public class FileApiController {
     }
 
 
+    /**
+     * @deprecated the multipart body is buffered before the handler runs; use
+     * {@code POST /api/v1/file/batch/stream} instead.
+     */
+    @Deprecated
     @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
             summary = "Upload multiple files",
-            description = "Upload multiple files to the server",
+            description = "Upload multiple files to the server, storing them in parallel. Deprecated: the body is " +
+                    "buffered before it is stored, use POST /api/v1/file/batch/stream instead.",
+            deprecated = true,
             responses = {
                     @ApiResponse(responseCode = "200", description = "Files uploaded successfully"),
+                    @ApiResponse(responseCode = "207", description = "Some files were rejected, see the per-file results"),
                     @ApiResponse(responseCode = "400", description = "Invalid files")
             })
-    public ResponseEntity<Map<String, String>> uploadMultipleFiles(
+    public ResponseEntity<Map<String, Object>> uploadMultipleFiles(
             @RequestParam("files") @Parameter(description = "Files to upload") List<MultipartFile> files) {
 
-        storageService.storeMultiple(files);
+        return batchResponse(storageService.storeMultiple(files));
+    }
+
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Streaming single file upload",
+            description = "Upload a file, streaming the multipart body straight to storage without staging it. " +
+                    "Only the first file part is stored, any later ones are skipped; use /batch/stream for several files.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "File uploaded successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid file",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "409", description = "File with this name already exists",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<?> streamUploadFile(HttpServletRequest request) throws IOException {
+        List<String> stored = new ArrayList<>();
+        StorageObservation.run(observationRegistry, StorageObservation.UPLOAD, observation ->
+                multipartReader.forEachFile(request, "file", (filename, contentType, content) -> {
+                    if (!stored.isEmpty()) {
+                        // Leaving the part unread lets the parser skip it on the way to the end of the body
+                        return;
+                    }
+                    StorageObservation.attribute(observation, StorageObservation.FILE_NAME, filename);
+                    storageService.store(filename, contentType, -1, content);
+                    stored.add(filename);
+                }));
+        if (stored.isEmpty()) {
+            throw new StorageException.InvalidFileException("No files sent.");
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Upload successful: " + stored.getFirst(),
+                "filename", stored.getFirst()
+        ));
+    }
+
+    @PostMapping(value = "/batch/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Streaming multiple file upload",
+            description = "Upload multiple files, storing each part as it arrives without staging it",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Files uploaded successfully"),
+                    @ApiResponse(responseCode = "207", description = "Some files were rejected, see the per-file results"),
+                    @ApiResponse(responseCode = "400", description = "Invalid files")
+            })
+    public ResponseEntity<Map<String, Object>> streamUploadMultipleFiles(HttpServletRequest request) throws IOException {
+        List<FileUploadResult> results = new ArrayList<>();
+        multipartReader.forEachFile(request, "files", (filename, contentType, content) -> {
+            try {
+                storageService.store(filename, contentType, -1, content);
+                results.add(FileUploadResult.stored(filename));
+            } catch (StorageException e) {
+                results.add(FileUploadResult.failed(filename, e.getMessage()));
+            }
+        });
+
+        if (results.isEmpty()) {
+            throw new StorageException("No files sent.");
+        }
+        return batchResponse(results);
+    }
+
+    @PutMapping("/{originalName:.+}")
+    @Operation(
+            summary = "Streaming raw upload",
+            description = "Upload the request body as a file; the Content-Type header is the file's MIME type. " +
+                    "With " + CONTENT_SHA256_HEADER + " set to the SHA-256 of content the server already holds " +
+                    "under the same Content-Type, the body may be empty. A body sent with the header must have " +
+                    "that SHA-256.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "File uploaded successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid file, or body not matching the checksum",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "404", description = "Checksum given with an empty body is not stored",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "409", description = "File with this name already exists",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<?> streamUploadBody(
+            @PathVariable @Parameter(description = "Name to store the file under") String originalName,
+            @RequestHeader(name = CONTENT_SHA256_HEADER, required = false)
+            @Parameter(description = "SHA-256 of the content, hex encoded") String checksum,
+            HttpServletRequest request) throws IOException {
+
+        return StorageObservation.observe(observationRegistry, StorageObservation.UPLOAD, observation -> {
+            StorageObservation.attribute(observation, StorageObservation.FILE_NAME, originalName);
+            StorageObservation.attribute(observation, StorageObservation.FILE_SIZE, request.getContentLengthLong());
+            return storeBody(originalName, checksum, request);
+        });
+    }
+
+    private ResponseEntity<?> storeBody(String originalName, String checksum, HttpServletRequest request)
+            throws IOException {
+        String contentType = StreamingMultipartReader.baseType(request.getContentType());
+        String expectedChecksum = checksum == null ? null : checksum.toLowerCase();
+        if (expectedChecksum != null && request.getContentLengthLong() == 0) {
+            if (storageService.storeExisting(originalName, contentType, expectedChecksum)) {
+                return ResponseEntity.ok(Map.of(
+                        "message", "Upload successful, content already stored: " + originalName,
+                        "filename", originalName
+                ));
+            }
+            throw new StorageFileNotFoundException("No stored " + contentType + " content with checksum " + checksum);
+        }
+
+        // A body sent along with the checksum is stored only if it hashes to it
+        storageService.store(originalName, contentType, request.getContentLengthLong(), request.getInputStream(),
+                expectedChecksum);
         return ResponseEntity.ok(Map.of(
-                "message", files.size() + " files uploaded successfully",
-                "count", String.valueOf(files.size())
+                "message", "Upload successful: " + originalName,
+                "filename", originalName
         ));
     }
 
     @GetMapping
     @Operation(
-            summary = "List all files",
-            description = "Get metadata for all stored files",
+            summary = "List files",
+            description = "Get metadata of stored files, newest first, one page at a time. " +
+                    "Pass nextCursor from the previous page as cursor to continue.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "List of file metadata")
+                    @ApiResponse(responseCode = "200", description = "Page of file metadata"),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor or filter",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
             })
-    public ResponseEntity<List<FileMetadata>> listAllFiles() {
-        return ResponseEntity.ok(storageService.loadAllMetadata());
+    public ResponseEntity<FilePageDto> listFiles(
+            @ParameterObject FileSearchCriteria criteria,
+            @RequestParam(required = false) @Parameter(description = "Cursor returned with the previous page") String cursor,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000)
+            @Parameter(description = "Maximum number of files per page") int limit) {
+        return ResponseEntity.ok(storageService.listMetadata(criteria, cursor, limit));
+    }
+
+    @GetMapping(params = "format=ndjson", produces = NDJSON_VALUE)
+    @Operation(
+            summary = "Stream file listing",
+            description = "Stream metadata of all matching files as newline-delimited JSON, " +
+                    "written as MongoDB returns them",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "One JSON document per line")
+            })
+    public ResponseEntity<StreamingResponseBody> streamFiles(@ParameterObject FileSearchCriteria criteria) {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = out -> {
+            try (Stream<FileMetadata> files = storageService.streamMetadata(criteria)) {
+                Iterator<FileMetadata> iterator = files.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(out, iterator.next());
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
     }
 
     @DeleteMapping("/{originalName:.+}")
@@ -130,11 +415,44 @@ public class FileApiController {
         return ResponseEntity.ok().build();
     }
 
-    private boolean isViewable(String contentType) {
-        return contentType != null && (
-                contentType.startsWith("image/") ||
-                        contentType.equals("application/pdf") ||
-                        contentType.startsWith("text/")
-        );
+    private ResponseEntity<Map<String, Object>> batchResponse(List<FileUploadResult> results) {
+        long stored = results.stream().filter(FileUploadResult::stored).count();
+        HttpStatus status = stored == results.size() ? HttpStatus.OK
+                : stored == 0 ? HttpStatus.BAD_REQUEST
+                : HttpStatus.MULTI_STATUS;
+
+        return ResponseEntity.status(status).body(Map.of(
+                "message", stored + " of " + results.size() + " files uploaded successfully",
+                "count", String.valueOf(stored),
+                "results", results
+        ));
+    }
+
+    /**
+     * Lets the resource size its first chunk fetch from the requested range; invalid
+     * ranges are left to Spring MVC, which answers them with 416.
+     */
+    private static Resource forRanges(GridFsChunkResource resource, HttpHeaders requestHeaders) {
+        try {
+            return resource.forRanges(requestHeaders.getRange());
+        } catch (IllegalArgumentException e) {
+            return resource;
+        }
+    }
+
+    private boolean ifRangeMatches(HttpHeaders requestHeaders, String eTag, Instant lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range requires a strong comparison, so weak validators never match
+            return ifRange.equals(eTag);
+        }
+        try {
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().equals(lastModified);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
     }
 }
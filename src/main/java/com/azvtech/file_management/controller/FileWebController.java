@@ -1,8 +1,10 @@
 package com.azvtech.file_management.controller;
 
 import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.model.FileUploadResult;
 import com.azvtech.file_management.storage.StorageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,6 +17,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import java.util.List;
 
 @Controller
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/web/file")
 public class FileWebController {
     private final StorageService storageService;
@@ -54,9 +57,19 @@ public class FileWebController {
                 return "redirect:/web/file/upload";
             }
 
-            storageService.storeMultiple(List.of(files));
-            redirectAttributes.addFlashAttribute("message",
-                    files.length + " files were sent successfully");
+            List<FileUploadResult> results = storageService.storeMultiple(List.of(files));
+            List<String> errors = results.stream()
+                    .filter(result -> !result.stored())
+                    .map(result -> "%s: %s".formatted(result.filename(), result.error()))
+                    .toList();
+
+            if (errors.size() < results.size()) {
+                redirectAttributes.addFlashAttribute("message",
+                        (results.size() - errors.size()) + " files were sent successfully");
+            }
+            if (!errors.isEmpty()) {
+                redirectAttributes.addFlashAttribute("error", "Upload errors: " + String.join("; ", errors));
+            }
         } catch (StorageException e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
         }
@@ -0,0 +1,160 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.storage.ReactiveStorageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File API on the reactive stack, active with {@code spring.main.web-application-type=reactive}.
+ * Transfers never hold a thread while waiting on the client or on MongoDB, so slow
+ * connections only cost their buffers. Byte ranges, batch uploads and the listing are
+ * served by the servlet stack only.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/v1/file")
+@Tag(name = "File API", description = "File management operations")
+@RequiredArgsConstructor
+public class ReactiveFileApiController {
+
+    private final ReactiveStorageService storageService;
+    private final DownloadCachePolicy downloadCachePolicy;
+
+    @GetMapping("/{originalName:.+}")
+    @Operation(
+            summary = "File download/viewing",
+            description = "Download the file or display it in the browser, streamed chunk by chunk",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "File found"),
+                    @ApiResponse(responseCode = "304", description = "File not modified since the cached copy"),
+                    @ApiResponse(responseCode = "404", description = "File not found")
+            })
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadFile(
+            @PathVariable String originalName,
+            @RequestParam(required = false) @Parameter(description = "Display in browser if true") Boolean view,
+            ServerWebExchange exchange) {
+
+        return storageService.findByOriginalName(originalName).map(metadata -> {
+            String encoding = DownloadHeaders.negotiateEncoding(metadata, exchange.getRequest().getHeaders());
+            String cacheControl = downloadCachePolicy.cacheControl(metadata.contentType());
+
+            // Answered from metadata alone; ETag and Last-Modified are set on the response
+            if (exchange.checkNotModified(DownloadHeaders.eTag(metadata, encoding), DownloadHeaders.lastModified(metadata))) {
+                return ResponseEntity.status(exchange.getResponse().getStatusCode())
+                        .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                        .headers(headers -> DownloadHeaders.varyByEncoding(headers, metadata))
+                        .<Flux<DataBuffer>>build();
+            }
+
+            if (encoding != null) {
+                // Stored compressed and accepted as is: send the stored bytes, no decoding
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.CONTENT_DISPOSITION, DownloadHeaders.contentDisposition(metadata, view))
+                        .header(HttpHeaders.CONTENT_ENCODING, encoding)
+                        .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                        .headers(headers -> DownloadHeaders.varyByEncoding(headers, metadata))
+                        .contentType(MediaType.parseMediaType(metadata.contentType()))
+                        .body(storageService.loadStored(metadata));
+            }
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, DownloadHeaders.contentDisposition(metadata, view))
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .headers(headers -> DownloadHeaders.varyByEncoding(headers, metadata))
+                    .contentType(MediaType.parseMediaType(metadata.contentType()))
+                    .contentLength(metadata.size())
+                    .body(storageService.load(metadata));
+        });
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Upload single file",
+            description = "Upload a file, streaming the multipart body straight to storage",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "File uploaded successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid file"),
+                    @ApiResponse(responseCode = "409", description = "File with this name already exists")
+            })
+    public Mono<ResponseEntity<Map<String, String>>> uploadFile(@RequestBody Flux<PartEvent> parts) {
+        AtomicInteger files = new AtomicInteger();
+        return parts.windowUntil(PartEvent::isLast)
+                .concatMap(part -> part.switchOnFirst((first, events) -> {
+                    if (first.get() instanceof FilePartEvent file && "file".equals(file.name())) {
+                        if (files.incrementAndGet() > 1) {
+                            return Mono.<String>error(new StorageException.InvalidFileException("Only one file is accepted"));
+                        }
+                        String contentType = StreamingMultipartReader.baseType(file.headers().getFirst(HttpHeaders.CONTENT_TYPE));
+                        return storageService.store(file.filename(), contentType, -1, events.map(PartEvent::content))
+                                .thenReturn(file.filename());
+                    }
+                    // Skip other parts, releasing their buffers
+                    return events.doOnNext(event -> DataBufferUtils.release(event.content())).then(Mono.<String>empty());
+                }))
+                .collectList()
+                .map(stored -> {
+                    if (stored.isEmpty()) {
+                        throw new StorageException.InvalidFileException("No files sent.");
+                    }
+                    return ResponseEntity.ok(Map.of(
+                            "message", "Upload successful: " + stored.getFirst(),
+                            "filename", stored.getFirst()
+                    ));
+                });
+    }
+
+    @PutMapping("/{originalName:.+}")
+    @Operation(
+            summary = "Streaming raw upload",
+            description = "Upload the request body as a file; the Content-Type header is the file's MIME type",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "File uploaded successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid file"),
+                    @ApiResponse(responseCode = "409", description = "File with this name already exists")
+            })
+    public Mono<ResponseEntity<Map<String, String>>> streamUploadBody(
+            @PathVariable @Parameter(description = "Name to store the file under") String originalName,
+            ServerHttpRequest request) {
+
+        String contentType = StreamingMultipartReader.baseType(request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        return storageService.store(originalName, contentType, request.getHeaders().getContentLength(), request.getBody())
+                .thenReturn(ResponseEntity.ok(Map.of(
+                        "message", "Upload successful: " + originalName,
+                        "filename", originalName
+                )));
+    }
+
+    @DeleteMapping("/{originalName:.+}")
+    @Operation(
+            summary = "Delete file",
+            description = "Delete a file from the server",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "File deleted"),
+                    @ApiResponse(responseCode = "404", description = "File not found")
+            })
+    public Mono<ResponseEntity<Void>> deleteFile(
+            @PathVariable @Parameter(description = "Name of file to delete") String originalName) {
+
+        return storageService.delete(originalName).thenReturn(ResponseEntity.ok().<Void>build());
+    }
+}
@@ -0,0 +1,115 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.config.VirtualThreadMonitor;
+import com.azvtech.file_management.dto.response.CacheStatsDto;
+import com.azvtech.file_management.dto.response.SlowQueryDto;
+import com.azvtech.file_management.dto.response.TransferTraceDto;
+import com.azvtech.file_management.dto.response.VirtualThreadStatsDto;
+import com.azvtech.file_management.repository.FileMetadataIndexes;
+import com.azvtech.file_management.repository.SlowQueryMonitor;
+import com.azvtech.file_management.storage.FileMetadataCache;
+import com.azvtech.file_management.storage.HotContentCache;
+import com.azvtech.file_management.storage.TransferTraceRecorder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/stats")
+@Tag(name = "Stats API", description = "Runtime statistics of the storage service")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final FileMetadataCache metadataCache;
+    private final HotContentCache contentCache;
+    private final FileMetadataIndexes metadataIndexes;
+    private final SlowQueryMonitor slowQueryMonitor;
+    private final VirtualThreadMonitor virtualThreadMonitor;
+    private final TransferTraceRecorder transferTraceRecorder;
+
+    @GetMapping("/metadata-cache")
+    @Operation(
+            summary = "Metadata cache statistics",
+            description = "Hit/miss counts of the in-process file metadata cache",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Statistics per cache index")
+            })
+    public ResponseEntity<List<CacheStatsDto>> metadataCacheStats() {
+        return ResponseEntity.ok(List.of(
+                CacheStatsDto.of("metadata-by-name", metadataCache.originalNameStats()),
+                CacheStatsDto.of("metadata-by-gridfs-id", metadataCache.gridFsIdStats()),
+                CacheStatsDto.of("metadata-listing", metadataCache.listingStats())
+        ));
+    }
+
+    @GetMapping("/content-cache")
+    @Operation(
+            summary = "Content cache statistics",
+            description = "Hit/miss counts and off-heap usage of the hot content cache",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Content cache statistics")
+            })
+    public ResponseEntity<Map<String, Object>> contentCacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "stats", CacheStatsDto.of("content", contentCache.stats()),
+                "usedBytes", contentCache.usedBytes()
+        ));
+    }
+
+    @GetMapping("/metadata-indexes")
+    @Operation(
+            summary = "Metadata index status",
+            description = "Expected indexes of the metadata collection, whether each exists, " +
+                    "and the lookups that would still scan the whole collection",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Index verification report")
+            })
+    public ResponseEntity<Map<String, Object>> metadataIndexes() {
+        return ResponseEntity.ok(Map.of(
+                "indexes", metadataIndexes.verify(),
+                "collectionScans", metadataIndexes.explainLookups()
+        ));
+    }
+
+    @GetMapping("/slow-queries")
+    @Operation(
+            summary = "Slow metadata queries",
+            description = "Most recent metadata commands slower than the configured threshold, oldest first",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Slow queries, flagged when no index covers them")
+            })
+    public ResponseEntity<List<SlowQueryDto>> slowQueries() {
+        return ResponseEntity.ok(slowQueryMonitor.recent());
+    }
+
+    @GetMapping("/slow-transfers")
+    @Operation(
+            summary = "Slow transfer traces",
+            description = "Most recent requests slower than the tracing threshold, oldest first, with the time " +
+                    "spent in metadata lookups, GridFS reads and writes and their MongoDB commands",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Traces with their storage spans")
+            })
+    public ResponseEntity<List<TransferTraceDto>> slowTransfers() {
+        return ResponseEntity.ok(transferTraceRecorder.recent());
+    }
+
+    @GetMapping("/virtual-threads")
+    @Operation(
+            summary = "Virtual thread statistics",
+            description = "Carrier thread pool of the virtual thread scheduler and pinning detected since startup",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Virtual thread statistics")
+            })
+    public ResponseEntity<VirtualThreadStatsDto> virtualThreadStats() {
+        return ResponseEntity.ok(virtualThreadMonitor.stats());
+    }
+}
@@ -0,0 +1,84 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.exception.StorageException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parses multipart request bodies incrementally. Each file part is handed over as the
+ * raw part stream while it is still arriving on the socket, so nothing is staged in
+ * memory or in temp files. Requires {@code spring.servlet.multipart.resolve-lazily=true}
+ * so the servlet container has not consumed the body before the handler runs.
+ * <p>
+ * Parsing uses the streaming API of Commons FileUpload for Jakarta Servlet 6, so no
+ * {@code FileItemFactory} is involved and no part is written to disk.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StreamingMultipartReader {
+
+    private final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+
+    /**
+     * Invokes {@code handler} for every non-empty file part named {@code fieldName}, in the
+     * order they appear in the body. The part stream is only valid inside the callback.
+     *
+     * @return the number of file parts handed to the handler
+     */
+    public int forEachFile(HttpServletRequest request, String fieldName, FilePartHandler handler) throws IOException {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new StorageException.InvalidFileException("Multipart request expected");
+        }
+
+        int count = 0;
+        try {
+            FileItemInputIterator parts = upload.getItemIterator(request);
+            while (parts.hasNext()) {
+                FileItemInput part = parts.next();
+                if (part.isFormField() || !fieldName.equals(part.getFieldName()) || !StringUtils.hasText(part.getName())) {
+                    continue;
+                }
+                try (InputStream content = part.getInputStream()) {
+                    handler.handle(FilenameUtils.getName(part.getName()), baseType(part.getContentType()), content);
+                }
+                count++;
+            }
+        } catch (FileUploadException e) {
+            throw new StorageException.InvalidFileException("Malformed multipart request: " + e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Strips parameters such as {@code charset} from a declared content type.
+     */
+    static String baseType(String contentType) {
+        if (!StringUtils.hasText(contentType)) {
+            return null;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return mediaType.getType() + "/" + mediaType.getSubtype();
+        } catch (IllegalArgumentException e) {
+            return contentType;
+        }
+    }
+
+    @FunctionalInterface
+    public interface FilePartHandler {
+        void handle(String filename, String contentType, InputStream content);
+    }
+}
@@ -0,0 +1,122 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.dto.request.UploadSessionRequest;
+import com.azvtech.file_management.dto.response.ErrorResponseDto;
+import com.azvtech.file_management.dto.response.UploadSessionDto;
+import com.azvtech.file_management.model.UploadSession;
+import com.azvtech.file_management.storage.UploadSessionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/uploads")
+@Tag(name = "Resumable Upload API", description = "Uploads sent in parts that survive dropped connections")
+@RequiredArgsConstructor
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    @PostMapping
+    @Operation(
+            summary = "Start a resumable upload",
+            description = "Checks the file like a direct upload and returns the part size to split it by",
+            responses = {
+                    @ApiResponse(responseCode = "201", description = "Session created"),
+                    @ApiResponse(responseCode = "400", description = "Invalid file",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "409", description = "File with this name already exists",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<UploadSessionDto> createSession(@Valid @RequestBody UploadSessionRequest request) {
+        UploadSession session = uploadSessionService.create(request.originalName(), request.contentType(),
+                request.size());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(UploadSessionDto.of(session, uploadSessionService.missingParts(session)));
+    }
+
+    @GetMapping("/{sessionId}")
+    @Operation(
+            summary = "Resumable upload status",
+            description = "Lists the parts received and still missing, to resume after a dropped connection",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Session state"),
+                    @ApiResponse(responseCode = "404", description = "Session not found or expired",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<UploadSessionDto> getSession(@PathVariable String sessionId) {
+        UploadSession session = uploadSessionService.find(sessionId);
+        return ResponseEntity.ok(UploadSessionDto.of(session, uploadSessionService.missingParts(session)));
+    }
+
+    @PutMapping("/{sessionId}/parts/{part}")
+    @Operation(
+            summary = "Upload one part",
+            description = "Stores the request body as part number {part}, counted from 0. Every part but the " +
+                    "last must be exactly partSize bytes. Parts may be sent in any order and in parallel.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Part stored"),
+                    @ApiResponse(responseCode = "400", description = "Part out of range or of the wrong size",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "404", description = "Session not found or expired",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "409", description = "Part already received or being uploaded",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<UploadSessionDto> uploadPart(
+            @PathVariable String sessionId,
+            @PathVariable @Parameter(description = "Part number, from 0") int part,
+            HttpServletRequest request) throws IOException {
+        UploadSession session = uploadSessionService.uploadPart(sessionId, part, request.getInputStream());
+        return ResponseEntity.ok(UploadSessionDto.of(session, uploadSessionService.missingParts(session)));
+    }
+
+    @PostMapping("/{sessionId}/commit")
+    @Operation(
+            summary = "Finish a resumable upload",
+            description = "Stores the file once every part is received and ends the session",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "File uploaded successfully"),
+                    @ApiResponse(responseCode = "400", description = "Parts missing or invalid file",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "404", description = "Session not found or expired",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+                    @ApiResponse(responseCode = "409", description = "File with this name already exists",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<?> commit(@PathVariable String sessionId) {
+        String originalName = uploadSessionService.commit(sessionId).originalName();
+        return ResponseEntity.ok(Map.of(
+                "message", "Upload successful: " + originalName,
+                "filename", originalName
+        ));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    @Operation(
+            summary = "Abort a resumable upload",
+            description = "Ends the session and deletes the parts received",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Session aborted"),
+                    @ApiResponse(responseCode = "404", description = "Session not found or expired",
+                            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+            })
+    public ResponseEntity<Void> abort(@PathVariable String sessionId) {
+        uploadSessionService.abort(sessionId);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.azvtech.file_management.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Filters for listing stored files")
+public record FileSearchCriteria(
+        @Schema(description = "Only files with this MIME type", example = "application/pdf")
+        String contentType,
+
+        @Schema(description = "Minimum size in bytes", example = "1024")
+        Long minSize,
+
+        @Schema(description = "Maximum size in bytes", example = "52428800")
+        Long maxSize,
+
+        @Schema(description = "Uploaded at or after", example = "2025-06-01T00:00:00")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime uploadedFrom,
+
+        @Schema(description = "Uploaded at or before", example = "2025-06-30T23:59:59")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime uploadedTo
+) {
+    public static FileSearchCriteria none() {
+        return new FileSearchCriteria(null, null, null, null, null);
+    }
+}
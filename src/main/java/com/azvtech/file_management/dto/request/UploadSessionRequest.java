@@ -0,0 +1,20 @@
+package com.azvtech.file_management.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+
+@Schema(description = "File to be sent as a resumable upload")
+public record UploadSessionRequest(
+        @Schema(description = "Name to store the file under", example = "report.pdf")
+        @NotBlank
+        String originalName,
+
+        @Schema(description = "MIME type of the file", example = "application/pdf")
+        @NotBlank
+        String contentType,
+
+        @Schema(description = "Size of the whole file in bytes", example = "52428800")
+        @Positive
+        long size
+) {}
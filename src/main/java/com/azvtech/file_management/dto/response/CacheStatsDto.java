@@ -0,0 +1,26 @@
+package com.azvtech.file_management.dto.response;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Hit/miss statistics of an in-process cache")
+public record CacheStatsDto(
+        @Schema(description = "Cache name", example = "metadata-by-name")
+        String name,
+
+        @Schema(description = "Lookups answered from the cache", example = "1520")
+        long hitCount,
+
+        @Schema(description = "Lookups that went to the backing store", example = "37")
+        long missCount,
+
+        @Schema(description = "Share of lookups answered from the cache", example = "0.976")
+        double hitRate,
+
+        @Schema(description = "Entries evicted for size or age", example = "4")
+        long evictionCount
+) {
+    public static CacheStatsDto of(String name, CacheStats stats) {
+        return new CacheStatsDto(name, stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
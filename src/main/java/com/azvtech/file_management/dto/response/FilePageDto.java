@@ -0,0 +1,17 @@
+package com.azvtech.file_management.dto.response;
+
+import com.azvtech.file_management.model.FileMetadata;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "One page of file metadata, newest first")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FilePageDto(
+        @Schema(description = "Files on this page")
+        List<FileMetadata> items,
+
+        @Schema(description = "Cursor for the next page; absent on the last page", nullable = true)
+        String nextCursor
+) {}
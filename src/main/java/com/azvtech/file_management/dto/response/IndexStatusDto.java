@@ -0,0 +1,20 @@
+package com.azvtech.file_management.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Expected index of the metadata collection and whether it exists")
+public record IndexStatusDto(
+        @Schema(description = "Index name", example = "originalName")
+        String name,
+
+        @Schema(description = "Indexed fields, in key order", example = "[\"uploadDate\", \"_id\"]")
+        List<String> keys,
+
+        @Schema(description = "Whether the index enforces unique values", example = "true")
+        boolean unique,
+
+        @Schema(description = "Whether the index exists with these keys and options", example = "true")
+        boolean present
+) {}
@@ -0,0 +1,23 @@
+package com.azvtech.file_management.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+@Schema(description = "Metadata command that took longer than the slow query threshold")
+public record SlowQueryDto(
+        @Schema(description = "When the command completed", example = "2025-06-26T18:30:45.123Z")
+        Instant completedAt,
+
+        @Schema(description = "MongoDB command name", example = "find")
+        String command,
+
+        @Schema(description = "Query filter and sort, as JSON", example = "{\"filter\": {\"size\": {\"$gte\": 1024}}}")
+        String query,
+
+        @Schema(description = "Duration in milliseconds", example = "412")
+        long durationMillis,
+
+        @Schema(description = "Whether no expected index covers a filtered or sorted field", example = "true")
+        boolean missesIndex
+) {}
@@ -0,0 +1,41 @@
+package com.azvtech.file_management.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Trace of a request that moved a file, with the storage spans it went through")
+public record TransferTraceDto(
+        @Schema(description = "When the request completed", example = "2025-06-26T18:30:45.123Z")
+        Instant completedAt,
+
+        @Schema(description = "Request or operation traced", example = "http get /api/v1/file/{originalName}")
+        String name,
+
+        @Schema(description = "Duration in milliseconds", example = "1840")
+        long durationMillis,
+
+        @Schema(description = "Storage spans in the order they started")
+        List<Span> spans
+) {
+    @Schema(description = "One step of the transfer")
+    public record Span(
+            @Schema(description = "Span name", example = "storage.gridfs.read")
+            String name,
+
+            @Schema(description = "Name of the enclosing span, absent at the top level", example = "file.download")
+            String parent,
+
+            @Schema(description = "Start, in milliseconds after the trace started", example = "4")
+            long startMillis,
+
+            @Schema(description = "Duration in milliseconds", example = "1830")
+            long durationMillis,
+
+            @Schema(description = "File size, chunk count, bytes transferred and MongoDB command time",
+                    example = "{\"bytes\": \"52428800\", \"chunk.count\": \"50\", \"mongo.commands\": \"13\", \"mongo.ms\": \"112\"}")
+            Map<String, String> attributes
+    ) {}
+}
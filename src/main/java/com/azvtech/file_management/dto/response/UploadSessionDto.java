@@ -0,0 +1,51 @@
+package com.azvtech.file_management.dto.response;
+
+import com.azvtech.file_management.model.UploadSession;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+@Schema(description = "State of a resumable upload")
+public record UploadSessionDto(
+        @Schema(description = "Session id used in part and commit requests", example = "66a1f0c2e4b0a1b2c3d4e5f6")
+        String sessionId,
+
+        @Schema(description = "Name the file will be stored under", example = "report.pdf")
+        String originalName,
+
+        @Schema(description = "Size of the whole file in bytes", example = "52428800")
+        long size,
+
+        @Schema(description = "Bytes per part; only the last part may be shorter", example = "8388608")
+        long partSize,
+
+        @Schema(description = "Number of parts, numbered from 0", example = "7")
+        int partCount,
+
+        @Schema(description = "Parts fully received, in order", example = "[0, 1, 2, 4]")
+        List<Integer> receivedParts,
+
+        @Schema(description = "Parts still to be sent, in order", example = "[3, 5, 6]")
+        List<Integer> missingParts,
+
+        @Schema(description = "Bytes received so far", example = "33554432")
+        long receivedBytes,
+
+        @Schema(description = "When the session is removed unless another part or the commit arrives",
+                example = "2025-06-27T18:30:45Z")
+        Instant expiresAt
+) {
+    public static UploadSessionDto of(UploadSession session, List<Integer> missingParts) {
+        return new UploadSessionDto(
+                session.id(),
+                session.originalName(),
+                session.size(),
+                session.partSize(),
+                session.partCount(),
+                session.receivedParts().stream().sorted().toList(),
+                missingParts,
+                session.receivedBytes(),
+                session.expiresAt());
+    }
+}
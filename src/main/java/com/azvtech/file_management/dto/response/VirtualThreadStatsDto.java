@@ -0,0 +1,45 @@
+package com.azvtech.file_management.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+@Schema(description = "Virtual thread scheduler and pinning statistics")
+public record VirtualThreadStatsDto(
+        @Schema(description = "Whether requests run on virtual threads", example = "true")
+        boolean enabled,
+
+        @Schema(description = "Carrier threads the scheduler keeps busy", example = "8")
+        int carrierParallelism,
+
+        @Schema(description = "Upper bound of carrier threads, including compensation for pinning", example = "256")
+        int carrierMaxPoolSize,
+
+        @Schema(description = "Carrier threads currently alive", example = "8")
+        int carrierThreads,
+
+        @Schema(description = "Pinned virtual threads over the threshold since startup", example = "3")
+        long pinnedCount,
+
+        @Schema(description = "Total time virtual threads spent pinned, in milliseconds", example = "87")
+        long pinnedMillis,
+
+        @Schema(description = "Virtual threads that could not be scheduled", example = "0")
+        long submitFailedCount,
+
+        @Schema(description = "Most recent pinning events, oldest first")
+        List<PinnedEvent> recentPinned
+) {
+    @Schema(description = "A virtual thread that blocked while pinned to its carrier")
+    public record PinnedEvent(
+            @Schema(description = "When the pinned section started", example = "2025-06-26T18:30:45.123Z")
+            Instant startTime,
+
+            @Schema(description = "Time pinned, in milliseconds", example = "31")
+            long durationMillis,
+
+            @Schema(description = "Top stack frames where the thread blocked")
+            List<String> stackTrace
+    ) {}
+}
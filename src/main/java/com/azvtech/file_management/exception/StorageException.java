@@ -10,7 +10,16 @@ public class StorageException extends RuntimeException {
         super(message, cause);
     }
 
-    public static class DuplicateFileException extends StorageException {
+    /**
+     * The request conflicts with the current state of the stored data.
+     */
+    public static class ConflictException extends StorageException {
+        public ConflictException(String message) {
+            super(message);
+        }
+    }
+
+    public static class DuplicateFileException extends ConflictException {
         public DuplicateFileException(String filename) {
             super("A file with name '" + filename + "' already exists");
         }
@@ -21,4 +30,13 @@ public class StorageException extends RuntimeException {
             super(message);
         }
     }
+
+    /**
+     * The work could not be accepted right now; the request may be retried later.
+     */
+    public static class BusyException extends StorageException {
+        public BusyException(String message) {
+            super(message);
+        }
+    }
 }
@@ -5,6 +5,7 @@ import com.azvtech.file_management.exception.StorageException;
 import com.azvtech.file_management.exception.StorageFileNotFoundException;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -19,6 +20,7 @@ import java.util.stream.Collectors;
 
 @Slf4j
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
     @ExceptionHandler(StorageFileNotFoundException.class)
     public ResponseEntity<ErrorResponseDto> handleStorageFileNotFound(
@@ -36,9 +38,11 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponseDto> handleStorageException(
             StorageException ex, WebRequest request) {
 
-        HttpStatus status = ex instanceof StorageException.DuplicateFileException
-                ? HttpStatus.CONFLICT
-                : HttpStatus.BAD_REQUEST;
+        HttpStatus status = switch (ex) {
+            case StorageException.ConflictException conflict -> HttpStatus.CONFLICT;
+            case StorageException.BusyException busy -> HttpStatus.SERVICE_UNAVAILABLE;
+            default -> HttpStatus.BAD_REQUEST;
+        };
 
         return buildErrorResponse(
                 ex,
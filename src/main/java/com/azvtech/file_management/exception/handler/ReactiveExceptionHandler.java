@@ -0,0 +1,69 @@
+package com.azvtech.file_management.exception.handler;
+
+import com.azvtech.file_management.dto.response.ErrorResponseDto;
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.exception.StorageFileNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.LocalDateTime;
+
+/**
+ * Error responses of the reactive stack, in the same shape as {@link GlobalExceptionHandler}.
+ */
+@Slf4j
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(StorageFileNotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleStorageFileNotFound(
+            StorageFileNotFoundException ex, ServerWebExchange exchange) {
+
+        return buildErrorResponse(ex, HttpStatus.NOT_FOUND, "File not found", exchange);
+    }
+
+    @ExceptionHandler(StorageException.class)
+    public ResponseEntity<ErrorResponseDto> handleStorageException(
+            StorageException ex, ServerWebExchange exchange) {
+
+        HttpStatus status = switch (ex) {
+            case StorageException.ConflictException conflict -> HttpStatus.CONFLICT;
+            case StorageException.BusyException busy -> HttpStatus.SERVICE_UNAVAILABLE;
+            default -> HttpStatus.BAD_REQUEST;
+        };
+
+        return buildErrorResponse(ex, status, "Storage error", exchange);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponseDto> handleAllExceptions(
+            Exception ex, ServerWebExchange exchange) {
+
+        log.error("Unexpected error occurred: {}", ex.getMessage(), ex);
+
+        return buildErrorResponse(ex, HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error", exchange);
+    }
+
+    private ResponseEntity<ErrorResponseDto> buildErrorResponse(
+            Exception ex,
+            HttpStatus status,
+            String error,
+            ServerWebExchange exchange) {
+
+        ErrorResponseDto response = ErrorResponseDto.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(error)
+                .message(ex.getMessage())
+                .path(exchange.getRequest().getPath().value())
+                .build();
+
+        return new ResponseEntity<>(response, status);
+    }
+}
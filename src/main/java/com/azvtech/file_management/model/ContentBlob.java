@@ -0,0 +1,32 @@
+package com.azvtech.file_management.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored GridFS object addressed by the SHA-256 checksum of its content. Every
+ * {@link FileMetadata} with that checksum points at the same {@code gridFsId};
+ * {@code referenceCount} tracks how many of them exist. {@code contentEncoding} is the
+ * coding of the stored bytes, {@code null} when stored as uploaded. {@code contentType} is
+ * the type the content was checked against when first written; attaching the content by
+ * checksum alone is only allowed under that type.
+ */
+@Document(collection = "event-file-blobs")
+public record ContentBlob(
+        @Id
+        String checksum,
+
+        String gridFsId,
+
+        long size,
+
+        String contentEncoding,
+
+        String contentType,
+
+        long referenceCount,
+
+        LocalDateTime createdDate
+) {}
@@ -6,6 +6,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Document(collection = "event-files")
 @Schema(description = "Metadata from a stored file")
@@ -28,9 +29,15 @@ public record  FileMetadata (
         @Schema(description = "SHA-256 hash for integrity verification")
         String checksum,
 
+        @Schema(description = "Content coding of the stored bytes, absent when stored as uploaded", example = "deflate")
+        String contentEncoding,
+
         byte[] file,
 
-        LocalDateTime uploadDate
+        LocalDateTime uploadDate,
+
+        @Schema(description = "Status of each post-upload job on the file")
+        Map<ProcessingJob.Type, ProcessingJob.Status> jobs
 
         /*
          TODO:  associate with the user
@@ -49,8 +56,10 @@ public record  FileMetadata (
         private String contentType;
         private long size;
         private String checksum;
+        private String contentEncoding;
         private byte[] file;
         private LocalDateTime uploadDate;
+        private Map<ProcessingJob.Type, ProcessingJob.Status> jobs;
 
         public Builder id(String id) {
             this.id = id;
@@ -82,6 +91,11 @@ public record  FileMetadata (
             return this;
         }
 
+        public Builder contentEncoding(String contentEncoding) {
+            this.contentEncoding = contentEncoding;
+            return this;
+        }
+
         public Builder file(byte[] file) {
             this.file = file;
             return this;
@@ -92,9 +106,14 @@ public record  FileMetadata (
             return this;
         }
 
+        public Builder jobs(Map<ProcessingJob.Type, ProcessingJob.Status> jobs) {
+            this.jobs = jobs;
+            return this;
+        }
+
         public FileMetadata build() {
             return new FileMetadata(id, originalName, gridFsId, contentType,
-                    size, checksum, file, uploadDate);
+                    size, checksum, contentEncoding, file, uploadDate, jobs);
         }
     }
 }
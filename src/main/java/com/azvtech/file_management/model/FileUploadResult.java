@@ -0,0 +1,25 @@
+package com.azvtech.file_management.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Outcome of one file in a batch upload")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FileUploadResult(
+        @Schema(description = "Original file name", example = "document.pdf")
+        String filename,
+
+        @Schema(description = "Whether the file was stored", example = "true")
+        boolean stored,
+
+        @Schema(description = "Reason the file was rejected", example = "A file with name 'document.pdf' already exists")
+        String error
+) {
+    public static FileUploadResult stored(String filename) {
+        return new FileUploadResult(filename, true, null);
+    }
+
+    public static FileUploadResult failed(String filename, String error) {
+        return new FileUploadResult(filename, false, error);
+    }
+}
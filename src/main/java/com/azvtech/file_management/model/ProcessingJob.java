@@ -0,0 +1,48 @@
+package com.azvtech.file_management.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A unit of post-upload work on one file, queued in MongoDB. A worker claims a job by
+ * moving it to {@link Status#RUNNING} with a lease until {@code lockedUntil}; a job
+ * whose lease expired, because its worker died, is claimed again. Failed attempts are
+ * retried at {@code runAt} until the attempt limit is reached.
+ */
+@Document(collection = "event-file-jobs")
+public record ProcessingJob(
+        @Id
+        String id,
+
+        String fileId,
+
+        Type type,
+
+        Status status,
+
+        int attempts,
+
+        Instant runAt,
+
+        Instant lockedUntil,
+
+        String lastError,
+
+        Instant createdDate
+) {
+    public enum Type {
+        /** Re-reads the stored content and checks it against the recorded checksum. */
+        VERIFY_CHECKSUM,
+        /** Renders the smallest thumbnail of an image ahead of its first preview. */
+        THUMBNAIL
+    }
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
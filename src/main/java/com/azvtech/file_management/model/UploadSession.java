@@ -0,0 +1,77 @@
+package com.azvtech.file_management.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A resumable upload in progress. The file is sent as numbered parts of
+ * {@code partSize} bytes, the last one shorter, each written straight to GridFS as
+ * chunks of the object {@code gridFsId} reserved when the session was created.
+ * {@code receivedParts} holds the parts fully written; a part being written is leased in
+ * {@code partLeases}, keyed by part number, until the time it maps to. Each attempt at a
+ * part writes its chunks under a GridFS object of its own, listed in {@code partAttempts};
+ * {@code partFiles} maps a received part to the attempt that wrote it, whose chunks are
+ * moved under {@code gridFsId} on commit. A session is extended by every part and
+ * removed, with its chunks, once {@code expiresAt} passes without a commit.
+ */
+@Document(collection = "event-file-upload-sessions")
+public record UploadSession(
+        @Id
+        String id,
+
+        String originalName,
+
+        String contentType,
+
+        long size,
+
+        int chunkSize,
+
+        long partSize,
+
+        String gridFsId,
+
+        Set<Integer> receivedParts,
+
+        Map<String, Instant> partLeases,
+
+        Map<String, String> partFiles,
+
+        Set<String> partAttempts,
+
+        boolean committing,
+
+        Instant expiresAt,
+
+        Instant createdDate
+) {
+    public UploadSession {
+        receivedParts = receivedParts == null ? Set.of() : Set.copyOf(receivedParts);
+        partLeases = partLeases == null ? Map.of() : Map.copyOf(partLeases);
+        partFiles = partFiles == null ? Map.of() : Map.copyOf(partFiles);
+        partAttempts = partAttempts == null ? Set.of() : Set.copyOf(partAttempts);
+    }
+
+    public int partCount() {
+        return (int) Math.max(1, (size + partSize - 1) / partSize);
+    }
+
+    /**
+     * Length of part {@code part}: {@code partSize}, except for the last part.
+     */
+    public long partLength(int part) {
+        return Math.min(partSize, size - part * partSize);
+    }
+
+    public int chunksPerPart() {
+        return (int) (partSize / chunkSize);
+    }
+
+    public long receivedBytes() {
+        return receivedParts.stream().mapToLong(this::partLength).sum();
+    }
+}
@@ -0,0 +1,55 @@
+package com.azvtech.file_management.processing;
+
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.ProcessingJob;
+import com.azvtech.file_management.storage.ContentCompression;
+import com.azvtech.file_management.storage.FileStoredEvent;
+import com.azvtech.file_management.storage.StorageService;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a stored file back from GridFS, bypassing the content cache, and checks that
+ * it still hashes to the checksum taken during upload.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ChecksumVerificationHandler implements JobHandler {
+
+    private final StorageService storageService;
+
+    public ChecksumVerificationHandler(StorageService storageService) {
+        this.storageService = storageService;
+    }
+
+    @Override
+    public ProcessingJob.Type type() {
+        return ProcessingJob.Type.VERIFY_CHECKSUM;
+    }
+
+    /**
+     * Only content written by this upload is read back; a file deduplicated onto stored
+     * content was verified when that content was written.
+     */
+    @Override
+    public boolean appliesTo(FileStoredEvent event) {
+        return event.newContent() && event.metadata().checksum() != null;
+    }
+
+    @Override
+    public void process(FileMetadata metadata) throws IOException {
+        try (InputStream content = ContentCompression.decode(
+                storageService.loadStoredResource(metadata).getInputStream(), metadata.contentEncoding())) {
+            String checksum = DigestUtils.sha256Hex(content);
+            if (!checksum.equals(metadata.checksum())) {
+                throw new StorageException("Stored content of %s hashes to %s, expected %s"
+                        .formatted(metadata.originalName(), checksum, metadata.checksum()));
+            }
+        }
+    }
+}
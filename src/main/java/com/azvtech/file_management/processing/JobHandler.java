@@ -0,0 +1,19 @@
+package com.azvtech.file_management.processing;
+
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.ProcessingJob;
+import com.azvtech.file_management.storage.FileStoredEvent;
+
+/**
+ * Work of one {@link ProcessingJob.Type}. Handlers are picked up as beans; a job is
+ * queued for every stored file the handler applies to. A handler throws to fail the
+ * attempt, which is retried later.
+ */
+public interface JobHandler {
+
+    ProcessingJob.Type type();
+
+    boolean appliesTo(FileStoredEvent event);
+
+    void process(FileMetadata metadata) throws Exception;
+}
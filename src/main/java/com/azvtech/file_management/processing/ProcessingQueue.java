@@ -0,0 +1,200 @@
+package com.azvtech.file_management.processing;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.ProcessingJob;
+import com.azvtech.file_management.storage.FileMetadataCache;
+import com.azvtech.file_management.storage.FileStoredEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Durable queue of {@link ProcessingJob}s in MongoDB. Jobs are queued once the metadata
+ * of a stored file is saved, and every state change is mirrored into the file's
+ * {@code jobs} map. All transitions are single-document atomic updates, and those of a
+ * running job only apply while its lease is still held, so a worker whose lease was
+ * taken over cannot overwrite the newer attempt.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProcessingQueue {
+
+    private final MongoOperations mongoOperations;
+    private final FileMetadataCache metadataCache;
+    private final List<JobHandler> handlers;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration lease;
+    private final Clock clock;
+
+    /**
+     * Released for every job queued on this node, so idle workers start without waiting
+     * for their next poll.
+     */
+    private final Semaphore queued = new Semaphore(0);
+
+    public ProcessingQueue(StorageProperties storageProperties, MongoOperations mongoOperations,
+                           FileMetadataCache metadataCache, List<JobHandler> handlers, Clock clock) {
+        StorageProperties.Jobs properties = storageProperties.jobs();
+        this.mongoOperations = mongoOperations;
+        this.metadataCache = metadataCache;
+        this.handlers = handlers.stream().filter(handler -> properties.types().contains(handler.type())).toList();
+        this.enabled = properties.enabled();
+        this.maxAttempts = properties.maxAttempts();
+        this.retryBackoff = properties.retryBackoff();
+        this.lease = properties.lease();
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoOperations.indexOps(ProcessingJob.class)
+                    .createIndex(new Index().on("status", Sort.Direction.ASC).on("runAt", Sort.Direction.ASC));
+            mongoOperations.indexOps(ProcessingJob.class)
+                    .createIndex(new Index().on("status", Sort.Direction.ASC).on("lockedUntil", Sort.Direction.ASC));
+        } catch (DataAccessException e) {
+            log.warn("Could not create processing job indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queues the jobs that apply to a newly stored file. Runs after the surrounding
+     * transaction commits, or right away when there is none.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileStored(FileStoredEvent event) {
+        FileMetadata metadata = event.metadata();
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now(clock);
+        List<ProcessingJob> jobs = handlers.stream()
+                .filter(handler -> handler.appliesTo(event))
+                .map(handler -> new ProcessingJob(null, metadata.id(), handler.type(), ProcessingJob.Status.PENDING,
+                        0, now, null, null, now))
+                .toList();
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        try {
+            Update statuses = new Update();
+            jobs.forEach(job -> statuses.set(statusKey(job.type()), ProcessingJob.Status.PENDING));
+            mongoOperations.updateFirst(query(where("_id").is(metadata.id())), statuses, FileMetadata.class);
+            mongoOperations.insert(jobs, ProcessingJob.class);
+            metadataCache.evict(metadata);
+            queued.release(jobs.size());
+        } catch (RuntimeException e) {
+            // The upload itself succeeded; only its background work is missing
+            log.error("Failed to queue processing of {}: {}", metadata.originalName(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claims the next due job: a pending one whose {@code runAt} has passed, or a running
+     * one whose lease expired.
+     */
+    Optional<ProcessingJob> claim() {
+        Instant now = Instant.now(clock);
+        Query due = query(new Criteria().orOperator(
+                where("status").is(ProcessingJob.Status.PENDING).and("runAt").lte(now),
+                where("status").is(ProcessingJob.Status.RUNNING).and("lockedUntil").lt(now)))
+                .with(Sort.by("runAt"));
+        Update start = new Update()
+                .set("status", ProcessingJob.Status.RUNNING)
+                .set("lockedUntil", now.plus(lease))
+                .inc("attempts", 1);
+        return Optional.ofNullable(mongoOperations.findAndModify(
+                due, start, FindAndModifyOptions.options().returnNew(true), ProcessingJob.class));
+    }
+
+    /**
+     * Waits up to {@code timeout} for a job to be queued on this node.
+     */
+    void awaitQueued(Duration timeout) throws InterruptedException {
+        if (queued.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            // One wake-up is enough; the worker claims until the queue is empty
+            queued.drainPermits();
+        }
+    }
+
+    boolean hasAttemptsLeft(ProcessingJob job) {
+        return job.attempts() < maxAttempts;
+    }
+
+    void running(ProcessingJob job, FileMetadata metadata) {
+        updateStatus(job, metadata, ProcessingJob.Status.RUNNING);
+    }
+
+    void succeeded(ProcessingJob job, FileMetadata metadata) {
+        if (mongoOperations.remove(leased(job), ProcessingJob.class).getDeletedCount() > 0) {
+            updateStatus(job, metadata, ProcessingJob.Status.SUCCEEDED);
+        }
+    }
+
+    /**
+     * Records a failed attempt, scheduling a retry while attempts are left.
+     */
+    void failed(ProcessingJob job, FileMetadata metadata, String error) {
+        boolean retry = hasAttemptsLeft(job);
+        ProcessingJob.Status status = retry ? ProcessingJob.Status.PENDING : ProcessingJob.Status.FAILED;
+        Update update = new Update()
+                .set("status", status)
+                .set("lastError", error)
+                .unset("lockedUntil");
+        if (retry) {
+            Duration backoff = retryBackoff.multipliedBy(1L << Math.min(job.attempts() - 1, 20));
+            update.set("runAt", Instant.now(clock).plus(backoff));
+        }
+        if (mongoOperations.updateFirst(leased(job), update, ProcessingJob.class).getModifiedCount() > 0) {
+            updateStatus(job, metadata, status);
+        }
+    }
+
+    /**
+     * Drops a job whose file was deleted before it ran.
+     */
+    void discard(ProcessingJob job) {
+        mongoOperations.remove(leased(job), ProcessingJob.class);
+    }
+
+    private void updateStatus(ProcessingJob job, FileMetadata metadata, ProcessingJob.Status status) {
+        mongoOperations.updateFirst(query(where("_id").is(metadata.id())),
+                new Update().set(statusKey(job.type()), status), FileMetadata.class);
+        metadataCache.evict(metadata);
+    }
+
+    private static Query leased(ProcessingJob job) {
+        return query(where("_id").is(job.id()).and("lockedUntil").is(job.lockedUntil()));
+    }
+
+    private static String statusKey(ProcessingJob.Type type) {
+        return "jobs." + type.name();
+    }
+}
@@ -0,0 +1,118 @@
+package com.azvtech.file_management.processing;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.ProcessingJob;
+import com.azvtech.file_management.repository.FileMetadataRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs queued {@link ProcessingJob}s off the request path. Each of the
+ * {@code storage.jobs.concurrency} workers is a virtual thread that claims one job at a
+ * time from {@link ProcessingQueue}, so that setting caps the jobs running on this node.
+ * Workers on every node share the queue.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ProcessingWorkers {
+
+    private final ProcessingQueue queue;
+    private final FileMetadataRepository metadataRepo;
+    private final Map<ProcessingJob.Type, JobHandler> handlers = new EnumMap<>(ProcessingJob.Type.class);
+    private final boolean enabled;
+    private final int concurrency;
+    private final Duration pollInterval;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public ProcessingWorkers(StorageProperties storageProperties, ProcessingQueue queue,
+                             FileMetadataRepository metadataRepo, List<JobHandler> handlers) {
+        StorageProperties.Jobs properties = storageProperties.jobs();
+        this.queue = queue;
+        this.metadataRepo = metadataRepo;
+        handlers.forEach(handler -> this.handlers.put(handler.type(), handler));
+        this.enabled = properties.enabled();
+        this.concurrency = properties.concurrency();
+        this.pollInterval = properties.pollInterval();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().name("processing-worker-" + i).start(this::work));
+        }
+        log.info("Started {} processing workers", concurrency);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // An interrupted job keeps its lease and is claimed again once the lease expires
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                Optional<ProcessingJob> job = queue.claim();
+                if (job.isPresent()) {
+                    run(job.get());
+                } else {
+                    queue.awaitQueued(pollInterval);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Processing queue unavailable, retrying in {}: {}", pollInterval, e.getMessage());
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void run(ProcessingJob job) {
+        FileMetadata metadata = metadataRepo.findById(job.fileId()).orElse(null);
+        if (metadata == null) {
+            queue.discard(job);
+            return;
+        }
+        JobHandler handler = handlers.get(job.type());
+        if (handler == null) {
+            queue.failed(job, metadata, "No handler for " + job.type());
+            return;
+        }
+
+        queue.running(job, metadata);
+        try {
+            handler.process(metadata);
+            queue.succeeded(job, metadata);
+            log.debug("{} of {} succeeded", job.type(), metadata.originalName());
+        } catch (Exception e) {
+            log.warn("{} of {} failed on attempt {}{}: {}", job.type(), metadata.originalName(), job.attempts(),
+                    queue.hasAttemptsLeft(job) ? ", will retry" : "", e.getMessage());
+            queue.failed(job, metadata, String.valueOf(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.azvtech.file_management.processing;
+
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.ProcessingJob;
+import com.azvtech.file_management.storage.FileStoredEvent;
+import com.azvtech.file_management.storage.ThumbnailService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Renders the smallest thumbnail of an uploaded image, the one listings show, so the
+ * first preview is served from storage. When the thumbnail pool is busy the attempt
+ * fails and is retried later.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ThumbnailHandler implements JobHandler {
+
+    private final ThumbnailService thumbnailService;
+
+    public ThumbnailHandler(ThumbnailService thumbnailService) {
+        this.thumbnailService = thumbnailService;
+    }
+
+    @Override
+    public ProcessingJob.Type type() {
+        return ProcessingJob.Type.THUMBNAIL;
+    }
+
+    @Override
+    public boolean appliesTo(FileStoredEvent event) {
+        String contentType = event.metadata().contentType();
+        return contentType != null && contentType.startsWith("image/");
+    }
+
+    @Override
+    public void process(FileMetadata metadata) {
+        thumbnailService.thumbnail(metadata, thumbnailService.variantWidth(1));
+    }
+}
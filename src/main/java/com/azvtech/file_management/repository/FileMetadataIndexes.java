@@ -0,0 +1,197 @@
+package com.azvtech.file_management.repository;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.dto.response.IndexStatusDto;
+import com.azvtech.file_management.model.FileMetadata;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Indexes of the {@code event-files} collection. Every metadata lookup the service runs
+ * (by name, GridFS id, checksum and the listing order) has an index behind it, so lookups
+ * stay flat as the collection grows. Indexes are created when the application is ready
+ * and then verified, both by listing them and by explaining the lookups themselves.
+ */
+@Slf4j
+@Component
+public class FileMetadataIndexes {
+
+    private static final String ORIGINAL_NAME = "originalName";
+
+    private static final List<Lookup> LOOKUPS = List.of(
+            new Lookup("by originalName", Filters.eq(ORIGINAL_NAME, ""), null),
+            new Lookup("by gridFsId", Filters.eq("gridFsId", ""), null),
+            new Lookup("by checksum", Filters.eq("checksum", ""), null),
+            new Lookup("listing", Filters.empty(), Sorts.descending("uploadDate", "_id")));
+
+    private final MongoOperations mongoOperations;
+    private final boolean provision;
+    private final boolean uniqueNames;
+
+    public FileMetadataIndexes(MongoOperations mongoOperations, StorageProperties storageProperties) {
+        this.mongoOperations = mongoOperations;
+        this.provision = storageProperties.metadataIndexes().provision();
+        this.uniqueNames = !storageProperties.allowDuplicateFiles();
+    }
+
+    /**
+     * Provisions and verifies the indexes. MongoDB being unreachable does not fail the
+     * startup; the indexes are then left for the next start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionOnStartup() {
+        if (!provision) {
+            return;
+        }
+        try {
+            ensureIndexes();
+            List<IndexStatusDto> missing = verify().stream().filter(status -> !status.present()).toList();
+            if (!missing.isEmpty()) {
+                log.warn("Metadata indexes missing after provisioning: {}", missing);
+            }
+            List<String> scans = explainLookups();
+            if (!scans.isEmpty()) {
+                log.warn("Metadata lookups still scanning the whole collection: {}", scans);
+            }
+        } catch (DataAccessException | MongoException e) {
+            log.warn("Could not provision metadata indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates any missing index. An existing name index whose uniqueness no longer matches
+     * {@code storage.allow-duplicate-files} is kept, since dropping it would leave name
+     * lookups unindexed until the new one is built; it is reported instead, to be rebuilt
+     * by an operator.
+     */
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoOperations.indexOps(FileMetadata.class);
+        Map<String, IndexInfo> existing = existing(indexOps);
+
+        for (Index index : definitions(uniqueNames)) {
+            String name = name(index);
+            IndexInfo current = existing.get(name);
+            if (current != null && current.isUnique() != isUnique(index)) {
+                log.warn("Metadata index {} has unique={} but storage.allow-duplicate-files expects unique={}; "
+                        + "drop it to have it rebuilt on the next start", name, current.isUnique(), isUnique(index));
+                continue;
+            }
+            try {
+                indexOps.createIndex(index);
+            } catch (DataAccessException e) {
+                // Typically stored duplicates blocking the unique name index; lookups still work
+                log.error("Could not create metadata index {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compares the expected indexes with those present on the collection.
+     */
+    public List<IndexStatusDto> verify() {
+        Map<String, IndexInfo> existing = existing(mongoOperations.indexOps(FileMetadata.class));
+        List<IndexStatusDto> statuses = new ArrayList<>();
+        for (Index index : definitions(uniqueNames)) {
+            IndexInfo current = existing.get(name(index));
+            boolean present = current != null
+                    && keys(current).equals(List.copyOf(index.getIndexKeys().keySet()))
+                    && current.isUnique() == isUnique(index);
+            statuses.add(new IndexStatusDto(name(index), List.copyOf(index.getIndexKeys().keySet()), isUnique(index), present));
+        }
+        return statuses;
+    }
+
+    /**
+     * Explains each lookup the service issues against the metadata collection.
+     *
+     * @return the lookups whose winning plan is a collection scan
+     */
+    public List<String> explainLookups() {
+        var collection = mongoOperations.getCollection(mongoOperations.getCollectionName(FileMetadata.class));
+        List<String> scans = new ArrayList<>();
+        for (Lookup lookup : LOOKUPS) {
+            Document plan = collection.find(lookup.filter()).sort(lookup.sort()).limit(1).explain();
+            Document queryPlanner = plan.get("queryPlanner", Document.class);
+            if (queryPlanner != null && hasStage(queryPlanner.get("winningPlan"), "COLLSCAN")) {
+                scans.add(lookup.name());
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Leading keys of the expected indexes; a query filtering or sorting on one of them
+     * can be answered from an index.
+     */
+    public static Set<String> leadingKeys() {
+        return definitions(false).stream()
+                .map(index -> index.getIndexKeys().keySet().iterator().next())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static List<Index> definitions(boolean uniqueNames) {
+        Index names = new Index().on(ORIGINAL_NAME, Sort.Direction.ASC).named(ORIGINAL_NAME);
+        return List.of(
+                uniqueNames ? names.unique() : names,
+                new Index().on("checksum", Sort.Direction.ASC).named("checksum"),
+                new Index().on("gridFsId", Sort.Direction.ASC).named("gridFsId"),
+                // Listing order, newest first, with the keyset tiebreaker
+                new Index().on("uploadDate", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                        .named("uploadDate_id"),
+                new Index().on("contentType", Sort.Direction.ASC)
+                        .on("uploadDate", Sort.Direction.DESC).on("_id", Sort.Direction.DESC)
+                        .named("contentType_uploadDate_id"));
+    }
+
+    private static Map<String, IndexInfo> existing(IndexOperations indexOps) {
+        return indexOps.getIndexInfo().stream()
+                .collect(Collectors.toMap(IndexInfo::getName, info -> info));
+    }
+
+    private static List<String> keys(IndexInfo info) {
+        return info.getIndexFields().stream().map(IndexField::getKey).toList();
+    }
+
+    private static String name(Index index) {
+        return index.getIndexOptions().getString("name");
+    }
+
+    private static boolean isUnique(Index index) {
+        return index.getIndexOptions().getBoolean("unique", false);
+    }
+
+    private static boolean hasStage(Object plan, String stage) {
+        if (plan instanceof Document document) {
+            return stage.equals(document.get("stage"))
+                    || document.values().stream().anyMatch(value -> hasStage(value, stage));
+        }
+        if (plan instanceof Collection<?> values) {
+            return values.stream().anyMatch(value -> hasStage(value, stage));
+        }
+        return false;
+    }
+
+    private record Lookup(String name, Bson filter, Bson sort) {
+    }
+}
@@ -2,13 +2,23 @@ package com.azvtech.file_management.repository;
 
 import com.azvtech.file_management.model.FileMetadata;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FileMetadataRepository extends MongoRepository<FileMetadata, String> {
+public interface FileMetadataRepository extends MongoRepository<FileMetadata, String>, FileMetadataRepositoryCustom {
     Optional<FileMetadata> findByOriginalName(String originalName);
+    Optional<FileMetadata> findFirstByGridFsId(String gridFsId);
     boolean existsByOriginalName(String originalName);
 
+    /**
+     * Existence check for a whole batch in one query; only {@code originalName} is loaded.
+     */
+    @Query(value = "{ 'originalName': { $in: ?0 } }", fields = "{ 'originalName': 1 }")
+    List<FileMetadata> findOriginalNamesIn(Collection<String> originalNames);
+
 }
@@ -0,0 +1,32 @@
+package com.azvtech.file_management.repository;
+
+import com.azvtech.file_management.dto.request.FileSearchCriteria;
+import com.azvtech.file_management.model.FileMetadata;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface FileMetadataRepositoryCustom {
+
+    /**
+     * Returns up to {@code limit} files matching {@code criteria} that come after
+     * {@code cursor} in listing order, newest first. Heavy fields are not loaded.
+     */
+    List<FileMetadata> findPage(FileSearchCriteria criteria, ListingCursor cursor, int limit);
+
+    /**
+     * Streams all files matching {@code criteria} in listing order straight from the
+     * MongoDB cursor. Heavy fields are not loaded. The stream must be closed.
+     */
+    Stream<FileMetadata> streamAll(FileSearchCriteria criteria);
+
+    /**
+     * Inserts all documents with a single unordered bulk write, so one failing document
+     * does not stop the others.
+     *
+     * @return the error message of each document that was not inserted, keyed by its
+     * index in {@code metadata}; empty when all were inserted
+     */
+    Map<Integer, String> insertAllReportingFailures(List<FileMetadata> metadata);
+}
@@ -0,0 +1,92 @@
+package com.azvtech.file_management.repository;
+
+import com.azvtech.file_management.dto.request.FileSearchCriteria;
+import com.azvtech.file_management.model.FileMetadata;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+class FileMetadataRepositoryImpl implements FileMetadataRepositoryCustom {
+
+    private static final Sort LISTING_ORDER = Sort.by(Sort.Direction.DESC, "uploadDate")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    private final MongoOperations mongoOperations;
+
+    FileMetadataRepositoryImpl(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    @Override
+    public List<FileMetadata> findPage(FileSearchCriteria criteria, ListingCursor cursor, int limit) {
+        List<Criteria> filters = filters(criteria);
+        if (cursor != null) {
+            // Keyset: strictly after the cursor in (uploadDate desc, _id desc) order
+            filters.add(new Criteria().orOperator(
+                    where("uploadDate").lt(cursor.uploadDate()),
+                    where("uploadDate").is(cursor.uploadDate()).and("id").lt(new ObjectId(cursor.id()))));
+        }
+        return mongoOperations.find(listingQuery(filters).limit(limit), FileMetadata.class);
+    }
+
+    @Override
+    public Stream<FileMetadata> streamAll(FileSearchCriteria criteria) {
+        return mongoOperations.stream(listingQuery(filters(criteria)), FileMetadata.class);
+    }
+
+    @Override
+    public Map<Integer, String> insertAllReportingFailures(List<FileMetadata> metadata) {
+        if (metadata.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, FileMetadata.class)
+                    .insert(metadata)
+                    .execute();
+            return Map.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage, (a, b) -> a));
+        }
+    }
+
+    private static List<Criteria> filters(FileSearchCriteria criteria) {
+        List<Criteria> filters = new ArrayList<>();
+        if (StringUtils.hasText(criteria.contentType())) {
+            filters.add(where("contentType").is(criteria.contentType()));
+        }
+        if (criteria.minSize() != null) {
+            filters.add(where("size").gte(criteria.minSize()));
+        }
+        if (criteria.maxSize() != null) {
+            filters.add(where("size").lte(criteria.maxSize()));
+        }
+        if (criteria.uploadedFrom() != null) {
+            filters.add(where("uploadDate").gte(criteria.uploadedFrom()));
+        }
+        if (criteria.uploadedTo() != null) {
+            filters.add(where("uploadDate").lte(criteria.uploadedTo()));
+        }
+        return filters;
+    }
+
+    private static Query listingQuery(List<Criteria> filters) {
+        Query query = filters.isEmpty() ? new Query() : new Query(new Criteria().andOperator(filters));
+        query.fields().exclude("file");
+        return query.with(LISTING_ORDER);
+    }
+}
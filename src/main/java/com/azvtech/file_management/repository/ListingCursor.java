@@ -0,0 +1,40 @@
+package com.azvtech.file_management.repository;
+
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.model.FileMetadata;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the listing order ({@code uploadDate} desc, {@code _id} desc).
+ * Clients receive it as an opaque URL-safe token.
+ */
+public record ListingCursor(LocalDateTime uploadDate, String id) {
+
+    public static ListingCursor after(FileMetadata metadata) {
+        return new ListingCursor(metadata.uploadDate(), metadata.id());
+    }
+
+    public static ListingCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            String id = value.substring(separator + 1);
+            if (!ObjectId.isValid(id)) {
+                throw new IllegalArgumentException("Invalid id in cursor");
+            }
+            return new ListingCursor(LocalDateTime.parse(value.substring(0, separator)), id);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new StorageException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((uploadDate + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,172 @@
+package com.azvtech.file_management.repository;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.dto.response.SlowQueryDto;
+import com.azvtech.file_management.model.FileMetadata;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * MongoDB command listener that reports commands on the metadata collection slower than
+ * {@code storage.metadata-indexes.slow-query-threshold}. A slow query is flagged as
+ * missing an index when none of the fields it filters or sorts on leads one of the
+ * indexes from {@link FileMetadataIndexes}. The most recent reports are kept for
+ * the stats endpoint.
+ */
+@Slf4j
+@Component
+public class SlowQueryMonitor implements CommandListener {
+
+    private static final String COLLECTION = FileMetadata.class.getAnnotation(Document.class).collection();
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "count", "aggregate", "findAndModify", "update", "delete");
+
+    private final long thresholdNanos;
+    private final int history;
+    private final Set<String> indexedKeys;
+    private final Map<Integer, BsonDocument> started = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<SlowQueryDto> recent = new ArrayDeque<>();
+
+    public SlowQueryMonitor(StorageProperties storageProperties) {
+        StorageProperties.MetadataIndexes properties = storageProperties.metadataIndexes();
+        this.thresholdNanos = properties.slowQueryThreshold().toNanos();
+        this.history = properties.slowQueryHistory();
+        this.indexedKeys = new HashSet<>(FileMetadataIndexes.leadingKeys());
+        this.indexedKeys.add("_id");
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!QUERY_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+        BsonValue collection = event.getCommand().get(event.getCommandName());
+        if (collection != null && collection.isString() && COLLECTION.equals(collection.asString().getValue())) {
+            // The command document is only valid during the callback, keep a copy of the query
+            started.put(event.getRequestId(), query(event.getCommandName(), event.getCommand()).clone());
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    public List<SlowQueryDto> recent() {
+        lock.lock();
+        try {
+            return List.copyOf(recent);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void completed(int requestId, String commandName, long elapsedNanos) {
+        BsonDocument query = started.remove(requestId);
+        if (query == null || elapsedNanos < thresholdNanos) {
+            return;
+        }
+
+        boolean missesIndex = !usesIndexedField(query);
+        var report = new SlowQueryDto(Instant.now(), commandName, query.toJson(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), missesIndex);
+        log.warn("Slow metadata {} took {}ms{}: {}", commandName, report.durationMillis(),
+                missesIndex ? " without an index" : "", report.query());
+
+        lock.lock();
+        try {
+            if (recent.size() == history) {
+                recent.removeFirst();
+            }
+            recent.addLast(report);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Extracts the filter and sort of a command into {@code {filter, sort}}.
+     */
+    private static BsonDocument query(String commandName, BsonDocument command) {
+        BsonDocument query = new BsonDocument();
+        BsonValue filter = switch (commandName) {
+            case "find" -> command.get("filter");
+            case "count", "findAndModify" -> command.get("query");
+            case "update", "delete" -> firstStatement(command.get(commandName.equals("update") ? "updates" : "deletes"));
+            case "aggregate" -> firstMatch(command.get("pipeline"));
+            default -> null;
+        };
+        query.put("filter", filter == null ? new BsonDocument() : filter);
+        if (command.containsKey("sort")) {
+            query.put("sort", command.get("sort"));
+        }
+        return query;
+    }
+
+    private static BsonValue firstStatement(BsonValue statements) {
+        if (statements instanceof BsonArray array && !array.isEmpty() && array.get(0).isDocument()) {
+            return array.get(0).asDocument().get("q");
+        }
+        return null;
+    }
+
+    private static BsonValue firstMatch(BsonValue pipeline) {
+        if (pipeline instanceof BsonArray array && !array.isEmpty() && array.get(0).isDocument()) {
+            return array.get(0).asDocument().get("$match");
+        }
+        return null;
+    }
+
+    private boolean usesIndexedField(BsonDocument query) {
+        BsonValue sort = query.get("sort");
+        if (sort != null && sort.isDocument() && !sort.asDocument().isEmpty()
+                && indexedKeys.contains(sort.asDocument().getFirstKey())) {
+            return true;
+        }
+        return referencesIndexedField(query.get("filter"));
+    }
+
+    private boolean referencesIndexedField(BsonValue filter) {
+        if (filter instanceof BsonArray array) {
+            return array.stream().anyMatch(this::referencesIndexedField);
+        }
+        if (!(filter instanceof BsonDocument document)) {
+            return false;
+        }
+        for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+            String key = entry.getKey();
+            if (key.equals("$and") || key.equals("$or")) {
+                if (referencesIndexedField(entry.getValue())) {
+                    return true;
+                }
+            } else if (!key.startsWith("$") && indexedKeys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
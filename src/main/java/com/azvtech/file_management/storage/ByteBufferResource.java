@@ -0,0 +1,97 @@
+package com.azvtech.file_management.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+/**
+ * Resource over a read-only {@link ByteBuffer}, typically a direct buffer held by
+ * {@link HotContentCache}. Each stream reads from its own view of the buffer, so the
+ * content is shared between concurrent downloads instead of copied per request.
+ */
+public class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer content;
+    private final String description;
+
+    ByteBufferResource(ByteBuffer content, String description) {
+        this.content = content.asReadOnlyBuffer();
+        this.description = description;
+    }
+
+    @Override
+    @NonNull
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(content.duplicate());
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return content.remaining();
+    }
+
+    @Override
+    @NonNull
+    public String getDescription() {
+        return description;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        /**
+         * Writes the rest of the buffer through a channel, which copies a direct buffer
+         * out in small slices instead of staging the whole content on the heap.
+         */
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            int remaining = buffer.remaining();
+            Channels.newChannel(out).write(buffer);
+            return remaining;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
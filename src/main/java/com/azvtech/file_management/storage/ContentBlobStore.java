@@ -0,0 +1,129 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.model.ContentBlob;
+import com.azvtech.file_management.model.FileMetadata;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Reference-counted index from content checksum to the GridFS object holding it.
+ * All updates are single-document atomic operations, so concurrent uploads and deletes
+ * of the same content never leave a blob without a tracked owner.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ContentBlobStore {
+
+    public enum Release {
+        /** Other metadata still references the blob. */
+        SHARED,
+        /** The last reference is gone and the blob record was removed. */
+        LAST_REFERENCE,
+        /** The metadata predates content addressing and owns its GridFS object alone. */
+        UNTRACKED
+    }
+
+    private final MongoOperations mongoOperations;
+
+    public ContentBlobStore(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * Adds a reference to the content with {@code checksum}. If the content is new,
+     * {@code gridFsId} becomes its canonical object; otherwise the existing object is
+     * returned, with the coding it was stored in, and the caller should drop the one it
+     * just wrote. {@code contentType} is the type the content was validated against.
+     *
+     * @return the blob that holds the content
+     */
+    public ContentBlob register(String checksum, String gridFsId, long size, String contentEncoding,
+                                String contentType) {
+        Update update = registration(gridFsId, size, contentEncoding, contentType);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+        ContentBlob blob;
+        try {
+            blob = mongoOperations.findAndModify(byChecksum(checksum), update, options, ContentBlob.class);
+        } catch (DuplicateKeyException e) {
+            // A concurrent upload inserted the same content first; increment that one
+            blob = mongoOperations.findAndModify(byChecksum(checksum), update, options, ContentBlob.class);
+        }
+        return blob;
+    }
+
+    /**
+     * Adds a reference to already stored content, if any was validated as
+     * {@code contentType} when written. Content stored under another type, or before
+     * blobs recorded their type, is not attached by checksum alone.
+     */
+    public Optional<ContentBlob> acquire(String checksum, String contentType) {
+        return Optional.ofNullable(mongoOperations.findAndModify(
+                query(where("_id").is(checksum).and("contentType").is(contentType).and("referenceCount").gt(0)),
+                new Update().inc("referenceCount", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                ContentBlob.class));
+    }
+
+    /**
+     * Drops the reference held by {@code metadata}. The caller deletes the GridFS object
+     * unless the result is {@link Release#SHARED}.
+     */
+    public Release release(FileMetadata metadata) {
+        if (metadata.checksum() == null) {
+            return Release.UNTRACKED;
+        }
+
+        ContentBlob blob = mongoOperations.findAndModify(
+                ownedBy(metadata),
+                new Update().inc("referenceCount", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                ContentBlob.class);
+
+        if (blob == null) {
+            return Release.UNTRACKED;
+        }
+        if (blob.referenceCount() > 0) {
+            return Release.SHARED;
+        }
+
+        // Only remove while still unreferenced; a concurrent register may have revived it
+        long removed = mongoOperations.remove(unreferenced(metadata), ContentBlob.class).getDeletedCount();
+        return removed > 0 ? Release.LAST_REFERENCE : Release.SHARED;
+    }
+
+    static Update registration(String gridFsId, long size, String contentEncoding, String contentType) {
+        return new Update()
+                .setOnInsert("gridFsId", gridFsId)
+                .setOnInsert("size", size)
+                .setOnInsert("contentEncoding", contentEncoding)
+                .setOnInsert("contentType", contentType)
+                .setOnInsert("createdDate", LocalDateTime.now())
+                .inc("referenceCount", 1);
+    }
+
+    static Query byChecksum(String checksum) {
+        return query(where("_id").is(checksum));
+    }
+
+    static Query ownedBy(FileMetadata metadata) {
+        return query(where("_id").is(metadata.checksum()).and("gridFsId").is(metadata.gridFsId()));
+    }
+
+    static Query unreferenced(FileMetadata metadata) {
+        return query(where("_id").is(metadata.checksum())
+                .and("gridFsId").is(metadata.gridFsId())
+                .and("referenceCount").lte(0));
+    }
+}
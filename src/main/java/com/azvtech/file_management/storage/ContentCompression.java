@@ -0,0 +1,144 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.ContentTypeMatcher;
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.exception.StorageException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression at rest. An upload of a configured content type is sampled: its first
+ * {@code sampleSize} bytes are deflated, and the whole file is stored deflated only if
+ * the sample shrank enough, so already compressed content is stored as is. Stored bytes
+ * use the zlib format of the HTTP {@code deflate} content coding, so they can be sent
+ * unchanged to clients that accept it.
+ */
+@Component
+public class ContentCompression {
+
+    /**
+     * Content coding of files stored deflated, as recorded in their metadata.
+     */
+    public static final String DEFLATE = "deflate";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final boolean enabled;
+    private final Set<String> contentTypes;
+    private final int sampleSize;
+    private final double maxRatio;
+    private final int level;
+
+    public ContentCompression(StorageProperties storageProperties) {
+        StorageProperties.Compression properties = storageProperties.compression();
+        this.enabled = properties.enabled();
+        this.contentTypes = properties.contentTypes();
+        this.sampleSize = (int) properties.sampleSize().toBytes();
+        this.maxRatio = properties.maxRatio();
+        this.level = properties.level();
+    }
+
+    /**
+     * The content to store for an upload, and its coding.
+     *
+     * @param encoding {@link #DEFLATE}, or {@code null} when stored as uploaded
+     */
+    record Encoded(InputStream content, String encoding) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+
+    /**
+     * Picks the coding of an upload from a sample of its first bytes. The sample is read
+     * from {@code content}, so inspection of the upload sees every byte once, in order.
+     */
+    Encoded encode(InputStream content, String contentType) throws IOException {
+        if (!enabled || !ContentTypeMatcher.matches(contentTypes, contentType)) {
+            return new Encoded(content, null);
+        }
+
+        byte[] sample = content.readNBytes(sampleSize);
+        InputStream whole = new SequenceInputStream(new ByteArrayInputStream(sample), content);
+        if (sample.length == 0 || deflatedSize(sample) > sample.length * maxRatio) {
+            return new Encoded(whole, null);
+        }
+        return new Encoded(new DeflatingStream(whole, new Deflater(level)), DEFLATE);
+    }
+
+    /**
+     * Decodes stored bytes written with {@code encoding}.
+     */
+    public static InputStream decode(InputStream stored, String encoding) {
+        if (encoding == null) {
+            return stored;
+        }
+        if (DEFLATE.equals(encoding)) {
+            return new InflatingStream(stored);
+        }
+        throw new StorageException("Unsupported content encoding: " + encoding);
+    }
+
+    private int deflatedSize(byte[] sample) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(sample);
+            deflater.finish();
+            byte[] output = new byte[Math.min(sample.length, BUFFER_SIZE)];
+            int size = 0;
+            while (!deflater.finished()) {
+                size += deflater.deflate(output);
+            }
+            return size;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Deflating stream that releases its native deflater on close.
+     */
+    private static final class DeflatingStream extends DeflaterInputStream {
+        DeflatingStream(InputStream in, Deflater deflater) {
+            super(in, deflater, BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
+
+    /**
+     * Inflating stream that releases its native inflater on close.
+     */
+    private static final class InflatingStream extends InflaterInputStream {
+        InflatingStream(InputStream in) {
+            super(in, new Inflater(), BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+}
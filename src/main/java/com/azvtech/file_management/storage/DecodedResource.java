@@ -0,0 +1,53 @@
+package com.azvtech.file_management.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decoded view of a file stored compressed. Its length is the original size, and like
+ * the stored resource it can be opened more than once, so Spring MVC still answers
+ * {@code Range} requests; skipped bytes are decompressed and discarded.
+ */
+final class DecodedResource extends AbstractResource {
+
+    private final Resource stored;
+    private final String encoding;
+    private final long size;
+
+    DecodedResource(Resource stored, String encoding, long size) {
+        this.stored = stored;
+        this.encoding = encoding;
+        this.size = size;
+    }
+
+    @Override
+    @NonNull
+    public InputStream getInputStream() throws IOException {
+        return ContentCompression.decode(stored.getInputStream(), encoding);
+    }
+
+    @Override
+    public boolean exists() {
+        return stored.exists();
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return stored.lastModified();
+    }
+
+    @Override
+    @NonNull
+    public String getDescription() {
+        return "Decoded " + stored.getDescription();
+    }
+}
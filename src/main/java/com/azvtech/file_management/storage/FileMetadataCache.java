@@ -0,0 +1,119 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.model.FileMetadata;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-process cache of {@link FileMetadata}, indexed by original name and by
+ * GridFS id, plus a snapshot of the full listing. Only hits are cached, so a file stored
+ * after a failed lookup is found on the next request. {@link StorageServiceImpl} keeps
+ * the entries consistent with its own writes.
+ * <p>
+ * A lookup loads inside the cache's per-key computation, which an eviction of that key
+ * waits for, so a load that read the database before a delete cannot outlive the
+ * eviction that follows it. Copying a loaded entry into the other index happens after
+ * the load, so it is skipped if any eviction ran in between.
+ */
+@Component
+public class FileMetadataCache {
+
+    private static final String LISTING_KEY = "all";
+
+    private final Cache<String, FileMetadata> byOriginalName;
+    private final Cache<String, FileMetadata> byGridFsId;
+    private final Cache<String, List<FileMetadata>> listing;
+    /**
+     * Bumped by every eviction, before the entries are invalidated.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FileMetadataCache(StorageProperties storageProperties) {
+        StorageProperties.MetadataCache properties = storageProperties.metadataCache();
+        long maximumSize = properties.enabled() ? properties.maximumSize() : 0;
+
+        this.byOriginalName = newCache(maximumSize, properties);
+        this.byGridFsId = newCache(maximumSize, properties);
+        this.listing = newCache(properties.enabled() ? 1 : 0, properties);
+    }
+
+    public Optional<FileMetadata> findByOriginalName(
+            String originalName, Function<String, Optional<FileMetadata>> loader) {
+        return find(byOriginalName, originalName, loader);
+    }
+
+    public Optional<FileMetadata> findByGridFsId(
+            String gridFsId, Function<String, Optional<FileMetadata>> loader) {
+        return find(byGridFsId, gridFsId, loader);
+    }
+
+    public List<FileMetadata> findAll(Supplier<List<FileMetadata>> loader) {
+        return listing.get(LISTING_KEY, key -> List.copyOf(loader.get()));
+    }
+
+    public void put(FileMetadata metadata) {
+        byOriginalName.put(metadata.originalName(), metadata);
+        byGridFsId.put(metadata.gridFsId(), metadata);
+        listing.invalidate(LISTING_KEY);
+    }
+
+    public void evict(FileMetadata metadata) {
+        evictions.incrementAndGet();
+        byOriginalName.invalidate(metadata.originalName());
+        byGridFsId.invalidate(metadata.gridFsId());
+        listing.invalidate(LISTING_KEY);
+    }
+
+    public CacheStats originalNameStats() {
+        return byOriginalName.stats();
+    }
+
+    public CacheStats gridFsIdStats() {
+        return byGridFsId.stats();
+    }
+
+    public CacheStats listingStats() {
+        return listing.stats();
+    }
+
+    private Optional<FileMetadata> find(
+            Cache<String, FileMetadata> cache, String key, Function<String, Optional<FileMetadata>> loader) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        long evictionsBefore = evictions.get();
+        FileMetadata metadata = cache.get(key, k -> loader.apply(k).orElse(null));
+        if (metadata != null) {
+            // Keep the other index warm as well, unless the entry may have been evicted since
+            warm(byOriginalName, metadata.originalName(), metadata, evictionsBefore);
+            warm(byGridFsId, metadata.gridFsId(), metadata, evictionsBefore);
+        }
+        return Optional.ofNullable(metadata);
+    }
+
+    private void warm(Cache<String, FileMetadata> cache, String key, FileMetadata metadata, long evictionsBefore) {
+        if (key == null) {
+            return;
+        }
+        // Serialized with the invalidation of the same key, which comes after the bump
+        cache.asMap().compute(key, (k, current) ->
+                current != null || evictions.get() != evictionsBefore ? current : metadata);
+    }
+
+    private static <V> Cache<String, V> newCache(long maximumSize, StorageProperties.MetadataCache properties) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(properties.timeToLive())
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.model.FileMetadata;
+
+/**
+ * Published by {@link StorageServiceImpl} once the metadata of a new file is saved.
+ * {@code newContent} is {@code false} when the file reuses content stored before.
+ */
+public record FileStoredEvent(FileMetadata metadata, boolean newContent) {
+}
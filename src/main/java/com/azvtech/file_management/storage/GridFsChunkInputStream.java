@@ -0,0 +1,215 @@
+package com.azvtech.file_management.storage;
+
+import com.mongodb.client.MongoCollection;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.Binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seekable stream over the chunks of a GridFS file. {@link #skip(long)} only moves the
+ * position; the next read jumps straight to chunk {@code n = position / chunkSize}
+ * instead of fetching and discarding the chunks in between, which keeps range requests
+ * near the end of a large file cheap. Sequential reads go through a
+ * {@link GridFsChunkReadAhead} started at the chunk read first, whose first query covers
+ * the range starting there when the stream was opened for known ranges, and otherwise
+ * the bytes asked for by the read that seeked. Each stream is a transfer
+ * for {@link StorageMetrics} and a {@link StorageObservation#GRIDFS_READ} observation,
+ * both ended on close with the bytes delivered, the chunks read and the time spent
+ * waiting for them.
+ */
+final class GridFsChunkInputStream extends InputStream {
+
+    private final MongoCollection<Document> chunks;
+    private final BsonValue fileId;
+    private final long length;
+    private final int chunkSize;
+    private final GridFsChunkReadAhead.Settings readAheadSettings;
+    private final Map<Long, Long> rangeLengths;
+    private final StorageMetrics.Transfer transfer;
+    private final Observation observation;
+    private final byte[] single = new byte[1];
+
+    private long position;
+    private long delivered;
+    private int chunksRead;
+    private long chunkWaitNanos;
+    private GridFsChunkReadAhead readAhead;
+    private byte[] chunk;
+    private int chunkIndex = -1;
+    private boolean closed;
+
+    GridFsChunkInputStream(MongoCollection<Document> chunks, BsonValue fileId, long length, int chunkSize,
+                           GridFsChunkReadAhead.Settings readAheadSettings, Map<Long, Long> rangeLengths,
+                           StorageMetrics metrics, ObservationRegistry observationRegistry) {
+        this.chunks = chunks;
+        this.fileId = fileId;
+        this.length = length;
+        this.chunkSize = chunkSize;
+        this.readAheadSettings = readAheadSettings;
+        this.rangeLengths = rangeLengths;
+        this.transfer = metrics.transfer(StorageMetrics.Direction.OUT);
+        this.observation = StorageObservation.start(observationRegistry, StorageObservation.GRIDFS_READ);
+        StorageObservation.attribute(observation, StorageObservation.FILE_SIZE, length);
+        StorageObservation.attribute(observation, StorageObservation.CHUNK_SIZE, chunkSize);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+
+        byte[] data = chunkAt(position, len);
+        int offset = chunkOffset(data);
+        int n = Math.min(len, data.length - offset);
+        System.arraycopy(data, offset, b, off, n);
+        position += n;
+        delivered += n;
+        return n;
+    }
+
+    /**
+     * Writes the rest of the file straight from each chunk's data, one write per chunk,
+     * without copying through an intermediate buffer. Spring MVC writes resource bodies
+     * this way.
+     */
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        ensureOpen();
+        long transferred = 0;
+        while (position < length) {
+            byte[] data = chunkAt(position, length - position);
+            int offset = chunkOffset(data);
+            int n = (int) Math.min(data.length - offset, length - position);
+            out.write(data, offset, n);
+            position += n;
+            transferred += n;
+            delivered += n;
+        }
+        return transferred;
+    }
+
+    @Override
+    public long skip(long n) {
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = Math.min(n, length - position);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        if (chunk == null || position / chunkSize != chunkIndex) {
+            return 0;
+        }
+        return (int) ((long) chunkIndex * chunkSize + chunk.length - position);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        chunk = null;
+        closeReadAhead();
+
+        transfer.add(delivered);
+        transfer.close();
+        StorageObservation.attribute(observation, StorageObservation.BYTES, delivered);
+        StorageObservation.attribute(observation, StorageObservation.CHUNK_COUNT, chunksRead);
+        StorageObservation.attribute(observation, StorageObservation.CHUNK_WAIT_MILLIS,
+                TimeUnit.NANOSECONDS.toMillis(chunkWaitNanos));
+        observation.stop();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Offset of the current position within {@code data}, the chunk holding it.
+     */
+    private int chunkOffset(byte[] data) throws IOException {
+        int offset = (int) (position - (long) chunkIndex * chunkSize);
+        if (offset >= data.length) {
+            throw new IOException("Chunk %d of GridFS file %s is shorter than expected".formatted(chunkIndex, fileId));
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the chunk holding {@code offset}, from where the caller wants to read
+     * {@code wanted} bytes.
+     */
+    private byte[] chunkAt(long offset, long wanted) throws IOException {
+        int n = (int) (offset / chunkSize);
+        if (chunk != null && chunkIndex == n) {
+            return chunk;
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (readAhead == null || chunkIndex + 1 != n) {
+                seek(n, rangeLengths.getOrDefault(offset, wanted));
+            }
+            chunk = readAhead.next();
+        } catch (IOException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            chunkWaitNanos += System.nanoTime() - start;
+        }
+        chunkIndex = n;
+        chunksRead++;
+        return chunk;
+    }
+
+    private void seek(int n, long wanted) {
+        closeReadAhead();
+        int chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+        long end = Math.min(length, position + Math.max(1, wanted));
+        int firstChunks = (int) ((end - 1) / chunkSize) - n + 1;
+        readAhead = new GridFsChunkReadAhead(chunks, fileId, chunkCount, chunkSize, n, firstChunks, readAheadSettings,
+                observation);
+    }
+
+    private void closeReadAhead() {
+        if (readAhead != null) {
+            readAhead.close();
+            readAhead = null;
+        }
+    }
+
+    static byte[] data(Document document) throws IOException {
+        Object data = document.get("data");
+        if (data instanceof Binary binary) {
+            return binary.getData();
+        }
+        if (data instanceof byte[] bytes) {
+            return bytes;
+        }
+        throw new IOException("Unexpected GridFS chunk data type: " + (data == null ? null : data.getClass()));
+    }
+}
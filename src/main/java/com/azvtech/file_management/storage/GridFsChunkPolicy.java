@@ -0,0 +1,64 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.ContentTypeMatcher;
+import com.azvtech.file_management.config.StorageProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Map;
+
+/**
+ * Picks the GridFS chunk size of an upload from its content type, preferring an exact
+ * match over a {@code type/*} wildcard over the configured default, and raises it for
+ * large files so they are split into fewer chunk documents.
+ */
+@Component
+public class GridFsChunkPolicy {
+
+    /**
+     * Leaves room for the chunk's other fields under MongoDB's 16MB document limit.
+     */
+    static final int MAX_CHUNK_SIZE = 15 * 1024 * 1024;
+
+    private final int defaultChunkSize;
+    private final Map<String, DataSize> chunkSizes;
+    private final long largeFileThreshold;
+    private final int largeFileChunkSize;
+    private final long writeBatchSize;
+
+    public GridFsChunkPolicy(StorageProperties storageProperties) {
+        StorageProperties.GridFs properties = storageProperties.gridFs();
+        this.defaultChunkSize = bounded(properties.defaultChunkSize());
+        this.chunkSizes = properties.chunkSize();
+        this.largeFileThreshold = properties.largeFileThreshold().toBytes();
+        this.largeFileChunkSize = bounded(properties.largeFileChunkSize());
+        this.writeBatchSize = properties.writeBatchSize().toBytes();
+    }
+
+    /**
+     * @param size declared length of the upload, negative when unknown
+     */
+    public int chunkSize(String contentType, long size) {
+        int chunkSize = byContentType(contentType);
+        if (size >= largeFileThreshold) {
+            return Math.max(chunkSize, largeFileChunkSize);
+        }
+        return chunkSize;
+    }
+
+    /**
+     * Number of chunks inserted with one command, at least one.
+     */
+    public int chunksPerBatch(int chunkSize) {
+        return (int) Math.max(1, writeBatchSize / chunkSize);
+    }
+
+    private int byContentType(String contentType) {
+        DataSize matched = ContentTypeMatcher.lookup(chunkSizes, contentType);
+        return matched != null ? bounded(matched) : defaultChunkSize;
+    }
+
+    private static int bounded(DataSize size) {
+        return Math.clamp(size.toBytes(), 1, MAX_CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,185 @@
+package com.azvtech.file_management.storage;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import io.micrometer.observation.Observation;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Sequential read-ahead over the chunks of a GridFS file, from a starting chunk to the
+ * end. The first query only fetches the {@code firstChunks} the reader is known to need,
+ * such as the chunks of a requested range, so a short range read does not pull a whole
+ * batch. Once the reader carries on past them, chunks are fetched by range queries of
+ * {@code batchChunks} each, several in flight at once, so the round trips to MongoDB
+ * overlap with each other and with writing earlier chunks to the client. The window
+ * requested ahead of the reader starts at one batch, doubles whenever the reader has to
+ * wait for a batch, and shrinks by one batch after a full window was ready in time, so a
+ * slow client holds little memory. The window never exceeds {@code limit} bytes of
+ * chunks. Queries run in the scope of the reading stream's observation, which their
+ * MongoDB command time is charged to.
+ */
+final class GridFsChunkReadAhead implements AutoCloseable {
+
+    /**
+     * Read-ahead configuration shared by every stream of a service.
+     *
+     * @param batchChunks chunks fetched per query
+     * @param limit       bytes of chunks a single stream may request ahead
+     * @param executor    runs the chunk queries
+     */
+    record Settings(int batchChunks, long limit, Executor executor) {
+    }
+
+    private final MongoCollection<Document> chunks;
+    private final BsonValue fileId;
+    private final int chunkCount;
+    private final int batchChunks;
+    private final int firstChunks;
+    private final int maxDepth;
+    private final Executor executor;
+    private final Observation observation;
+    private final ArrayDeque<CompletableFuture<List<byte[]>>> pending = new ArrayDeque<>();
+
+    private Iterator<byte[]> batch = Collections.emptyIterator();
+    private int nextChunk;
+    private int requested;
+    private int depth;
+    private int readyInTime;
+    private int batchesRead;
+
+    GridFsChunkReadAhead(MongoCollection<Document> chunks, BsonValue fileId, int chunkCount, int chunkSize,
+                         int firstChunk, int firstChunks, Settings settings, Observation observation) {
+        this.chunks = chunks;
+        this.fileId = fileId;
+        this.chunkCount = chunkCount;
+        this.batchChunks = Math.max(1, settings.batchChunks());
+        this.firstChunks = Math.clamp(firstChunks, 1, batchChunks);
+        this.maxDepth = (int) Math.max(batchChunks, Math.min(chunkCount, settings.limit() / chunkSize));
+        this.executor = settings.executor();
+        this.observation = observation;
+        this.nextChunk = firstChunk;
+        this.requested = firstChunk;
+        this.depth = batchChunks;
+    }
+
+    /**
+     * Returns the data of the next chunk, waiting for it if it has not arrived yet.
+     */
+    byte[] next() throws IOException {
+        if (nextChunk >= chunkCount) {
+            throw new IOException("Read past the last chunk of GridFS file " + fileId);
+        }
+        if (!batch.hasNext()) {
+            if (batchesRead == 0) {
+                enqueue(Math.min(nextChunk + firstChunks, chunkCount));
+            } else {
+                request();
+            }
+            CompletableFuture<List<byte[]>> head = pending.removeFirst();
+            // The window only opens once the reader needs more than the first query fetched,
+            // so the first two batches are always waited for; only later waits mean the
+            // reader caught up
+            if (head.isDone() || batchesRead < 2) {
+                readyInTime();
+            } else {
+                // The client drains faster than chunks arrive; fetch further ahead
+                depth = Math.min(depth * 2, maxDepth);
+                readyInTime = 0;
+                request();
+            }
+            batch = await(head).iterator();
+            batchesRead++;
+        }
+        nextChunk++;
+        return batch.next();
+    }
+
+    @Override
+    public void close() {
+        // Queries already running complete on their own; their chunks are dropped
+        pending.forEach(future -> future.cancel(false));
+        pending.clear();
+        batch = Collections.emptyIterator();
+    }
+
+    private void readyInTime() {
+        readyInTime += batchChunks;
+        if (readyInTime >= depth) {
+            depth = Math.max(batchChunks, depth - batchChunks);
+            readyInTime = 0;
+        }
+    }
+
+    /**
+     * Starts queries until the window ahead of the reader is covered.
+     */
+    private void request() {
+        while (requested < chunkCount && requested - nextChunk < depth) {
+            enqueue(Math.min(requested + batchChunks, chunkCount));
+        }
+    }
+
+    /**
+     * Starts the query for the chunks from the last one requested up to {@code to}.
+     */
+    private void enqueue(int to) {
+        int from = requested;
+        pending.addLast(CompletableFuture.supplyAsync(() -> observation.scoped(() -> fetch(from, to)), executor));
+        requested = to;
+    }
+
+    private List<byte[]> fetch(int from, int to) {
+        List<byte[]> data = new ArrayList<>(to - from);
+        try (MongoCursor<Document> cursor = chunks
+                .find(Filters.and(Filters.eq("files_id", fileId), Filters.gte("n", from), Filters.lt("n", to)))
+                .sort(Sorts.ascending("n"))
+                .batchSize(to - from)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                int expected = from + data.size();
+                if (document.getInteger("n") != expected) {
+                    throw new UncheckedIOException(new IOException("Expected chunk %d of GridFS file %s but found %s"
+                            .formatted(expected, fileId, document.get("n"))));
+                }
+                data.add(GridFsChunkInputStream.data(document));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (data.size() != to - from) {
+            throw new UncheckedIOException(new IOException("Missing chunk %d of GridFS file %s"
+                    .formatted(from + data.size(), fileId)));
+        }
+        return data;
+    }
+
+    private List<byte[]> await(CompletableFuture<List<byte[]>> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            if (e.getCause() instanceof MongoException cause) {
+                throw new IOException("Failed to read chunk %d of GridFS file %s".formatted(nextChunk, fileId), cause);
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.azvtech.file_management.storage;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import io.micrometer.observation.ObservationRegistry;
+import org.bson.Document;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.HttpRange;
+import org.springframework.lang.NonNull;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resource over a GridFS file with a known length. Unlike an
+ * {@link org.springframework.core.io.InputStreamResource} it can be opened more than once
+ * and its streams seek by chunk, so Spring MVC answers {@code Range} requests with
+ * partial content, including multi-range responses, without reading skipped chunks.
+ * A resource {@linkplain #forRanges opened for the requested ranges} also fetches no more
+ * than each range's chunks up front.
+ */
+public class GridFsChunkResource extends AbstractResource {
+
+    private final GridFSFile file;
+    private final MongoCollection<Document> chunks;
+    private final GridFsChunkReadAhead.Settings readAheadSettings;
+    private final StorageMetrics metrics;
+    private final ObservationRegistry observationRegistry;
+    private final Map<Long, Long> rangeLengths;
+
+    GridFsChunkResource(GridFSFile file, MongoCollection<Document> chunks,
+                        GridFsChunkReadAhead.Settings readAheadSettings, StorageMetrics metrics,
+                        ObservationRegistry observationRegistry) {
+        this(file, chunks, readAheadSettings, metrics, observationRegistry, Map.of());
+    }
+
+    private GridFsChunkResource(GridFSFile file, MongoCollection<Document> chunks,
+                                GridFsChunkReadAhead.Settings readAheadSettings, StorageMetrics metrics,
+                                ObservationRegistry observationRegistry, Map<Long, Long> rangeLengths) {
+        this.file = file;
+        this.chunks = chunks;
+        this.readAheadSettings = readAheadSettings;
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
+        this.rangeLengths = rangeLengths;
+    }
+
+    /**
+     * Returns this resource for serving {@code ranges}: a stream that seeks to the start
+     * of one of them first fetches only the chunks of that range.
+     *
+     * @throws IllegalArgumentException if a range is not satisfiable for this file
+     */
+    public GridFsChunkResource forRanges(List<HttpRange> ranges) {
+        Map<Long, Long> lengths = new HashMap<>();
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(file.getLength());
+            lengths.merge(start, range.getRangeEnd(file.getLength()) - start + 1, Math::max);
+        }
+        return new GridFsChunkResource(file, chunks, readAheadSettings, metrics, observationRegistry, Map.copyOf(lengths));
+    }
+
+    @Override
+    @NonNull
+    public InputStream getInputStream() {
+        return new GridFsChunkInputStream(chunks, file.getId(), file.getLength(), file.getChunkSize(), readAheadSettings,
+                rangeLengths, metrics, observationRegistry);
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return file.getLength();
+    }
+
+    @Override
+    public long lastModified() {
+        return file.getUploadDate().getTime();
+    }
+
+    @Override
+    @NonNull
+    public String getDescription() {
+        return "GridFS file [" + file.getObjectId() + "]";
+    }
+}
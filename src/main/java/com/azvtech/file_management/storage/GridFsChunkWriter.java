@@ -0,0 +1,183 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.exception.StorageException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import io.micrometer.observation.Observation;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes a GridFS file in the layout the driver uses, with batched chunk inserts. Chunks
+ * are inserted {@code chunksPerBatch} at a time, and one batch stays in flight while the
+ * next is read from the upload, so reading from the client overlaps with the write to
+ * MongoDB. The files document is inserted last, once every chunk is stored; on failure
+ * the chunks written so far are removed. Chunks can also be written as separate ranges
+ * of one file, as parts of a resumable upload are, with the files document inserted
+ * once all of them are in. Content longer than the chunks it may fill is rejected as an
+ * invalid upload. Chunk inserts run in the scope of the write's observation.
+ */
+final class GridFsChunkWriter {
+
+    /**
+     * Metadata key under which Spring Data's GridFS support keeps the content type.
+     */
+    private static final String CONTENT_TYPE_KEY = "_contentType";
+
+    private final MongoCollection<Document> files;
+    private final MongoCollection<Document> chunks;
+    private final Executor executor;
+
+    GridFsChunkWriter(MongoCollection<Document> files, MongoCollection<Document> chunks, Executor executor) {
+        this.files = files;
+        this.chunks = chunks;
+        this.executor = executor;
+    }
+
+    /**
+     * A file written by {@link #write}, {@code length} bytes long.
+     */
+    record Written(ObjectId fileId, long length) {
+    }
+
+    Written write(InputStream content, String filename, String contentType, int chunkSize, int chunksPerBatch,
+                  Observation observation) throws IOException {
+        ObjectId fileId = new ObjectId();
+        long length = writeChunks(content, fileId, 0, Integer.MAX_VALUE, chunkSize, chunksPerBatch, observation);
+        try {
+            insertFile(fileId, length, chunkSize, filename, contentType);
+        } catch (RuntimeException e) {
+            deleteChunks(fileId, 0, Integer.MAX_VALUE);
+            throw e;
+        }
+        return new Written(fileId, length);
+    }
+
+    /**
+     * Writes {@code content} as chunks {@code firstChunk} onwards of {@code fileId}, at
+     * most {@code maxChunks} of them. On failure the chunks written are removed.
+     *
+     * @return the number of bytes written
+     */
+    long writeChunks(InputStream content, ObjectId fileId, int firstChunk, int maxChunks, int chunkSize,
+                     int chunksPerBatch, Observation observation) throws IOException {
+        CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+        List<Document> batch = new ArrayList<>(chunksPerBatch);
+        long length = 0;
+        int n = firstChunk;
+
+        try {
+            byte[] data;
+            while ((data = readChunk(content, chunkSize)) != null) {
+                if (n - firstChunk == maxChunks) {
+                    throw new UploadStream.UploadRejectedException(new StorageException.InvalidFileException(
+                            "Content exceeds %d chunks of %d bytes".formatted(maxChunks, chunkSize)));
+                }
+                batch.add(new Document("files_id", fileId).append("n", n++).append("data", new Binary(data)));
+                length += data.length;
+                if (batch.size() == chunksPerBatch) {
+                    inFlight = insert(inFlight, batch, observation);
+                    batch = new ArrayList<>(chunksPerBatch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                inFlight = insert(inFlight, batch, observation);
+            }
+            await(inFlight);
+            return length;
+        } catch (IOException | RuntimeException e) {
+            abort(inFlight, fileId, firstChunk, maxChunks);
+            throw e;
+        }
+    }
+
+    /**
+     * Inserts the files document that makes chunks written earlier a readable file.
+     */
+    void insertFile(ObjectId fileId, long length, int chunkSize, String filename, String contentType) {
+        Document file = new Document("_id", fileId)
+                .append("length", length)
+                .append("chunkSize", chunkSize)
+                .append("uploadDate", new Date())
+                .append("filename", filename);
+        if (contentType != null) {
+            file.append("metadata", new Document(CONTENT_TYPE_KEY, contentType));
+        }
+        files.insertOne(file);
+    }
+
+    /**
+     * Removes chunks {@code firstChunk} to {@code firstChunk + count - 1} of {@code fileId}.
+     */
+    void deleteChunks(ObjectId fileId, int firstChunk, int count) {
+        chunks.deleteMany(Filters.and(Filters.eq("files_id", fileId),
+                Filters.gte("n", firstChunk), Filters.lt("n", (long) firstChunk + count)));
+    }
+
+    /**
+     * Moves every chunk of {@code fromId} under {@code toId}, keeping their numbers.
+     */
+    void moveChunks(ObjectId fromId, ObjectId toId) {
+        chunks.updateMany(Filters.eq("files_id", fromId), Updates.set("files_id", toId));
+    }
+
+    /**
+     * Waits for the previous batch, then starts inserting {@code batch}.
+     */
+    private CompletableFuture<Void> insert(CompletableFuture<Void> previous, List<Document> batch,
+                                           Observation observation) {
+        await(previous);
+        return CompletableFuture.runAsync(() -> observation.scoped(() -> chunks.insertMany(batch)), executor);
+    }
+
+    private void abort(CompletableFuture<Void> inFlight, ObjectId fileId, int firstChunk, int maxChunks) {
+        try {
+            inFlight.exceptionally(e -> null).join();
+            deleteChunks(fileId, firstChunk, maxChunks);
+        } catch (MongoException e) {
+            // Orphaned chunks have no files document, so they are never served
+        }
+    }
+
+    /**
+     * Reads up to {@code chunkSize} bytes; shorter only at the end of the content.
+     *
+     * @return {@code null} once the content is exhausted
+     */
+    private static byte[] readChunk(InputStream content, int chunkSize) throws IOException {
+        byte[] data = new byte[chunkSize];
+        int filled = 0;
+        int n;
+        while (filled < chunkSize && (n = content.read(data, filled, chunkSize - filled)) != -1) {
+            filled += n;
+        }
+        if (filled == 0) {
+            return null;
+        }
+        return filled == chunkSize ? data : Arrays.copyOf(data, filled);
+    }
+
+    private static void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,47 +1,262 @@
 package com.azvtech.file_management.storage;
 
+import com.azvtech.file_management.config.StorageProperties;
 import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.exception.StorageFileNotFoundException;
+import com.mongodb.MongoException;
 import com.mongodb.client.gridfs.model.GridFSFile;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonObjectId;
+import org.bson.Document;
 import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.gridfs.GridFsOperations;
 import org.springframework.data.mongodb.gridfs.GridFsTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+@Slf4j
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GridFsService {
+    private static final String FILES_COLLECTION = "fs.files";
+    private static final String CHUNKS_COLLECTION = "fs.chunks";
+
+    /**
+     * Files document keys tying a derived object, such as a thumbnail, to the GridFS
+     * object it was made from.
+     */
+    private static final String VARIANT_SOURCE_KEY = "metadata.source";
+    private static final String VARIANT_WIDTH_KEY = "metadata.width";
+
     private final GridFsTemplate gridFsTemplate;
-    private final GridFsOperations gridFsOperations;
+    private final MongoOperations mongoOperations;
+    private final GridFsChunkPolicy chunkPolicy;
+    private final GridFsChunkWriter chunkWriter;
+    private final GridFsChunkReadAhead.Settings readAheadSettings;
+    private final ExecutorService executor;
+    private final StorageMetrics metrics;
+    private final ObservationRegistry observationRegistry;
 
-    public GridFsService(GridFsTemplate gridFsTemplate, GridFsOperations gridFsOperations) {
+    public GridFsService(GridFsTemplate gridFsTemplate, MongoOperations mongoOperations, GridFsChunkPolicy chunkPolicy,
+                         StorageProperties storageProperties, StorageMetrics metrics,
+                         ObservationRegistry observationRegistry) {
         this.gridFsTemplate = gridFsTemplate;
-        this.gridFsOperations = gridFsOperations;
-    }
-
-    public String storeFile(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream()) {
-            ObjectId id = gridFsTemplate.store(
-                    inputStream,
-                    file.getOriginalFilename(),
-                    file.getContentType()
-            );
-            return id.toString();
-        } catch (IOException e) {
-            throw new StorageException("Failed to store file in GridFS", e);
+        this.mongoOperations = mongoOperations;
+        this.chunkPolicy = chunkPolicy;
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.chunkWriter = new GridFsChunkWriter(
+                mongoOperations.getCollection(FILES_COLLECTION),
+                mongoOperations.getCollection(CHUNKS_COLLECTION),
+                executor);
+        StorageProperties.Download download = storageProperties.download();
+        this.readAheadSettings = new GridFsChunkReadAhead.Settings(
+                download.prefetchChunks(), download.readAheadLimit().toBytes(), executor);
+    }
+
+    /**
+     * Creates the indexes the GridFS driver would create on its first write, since
+     * {@link #storeFile} writes chunks itself.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoOperations.indexOps(FILES_COLLECTION)
+                    .createIndex(new Index().on("filename", Sort.Direction.ASC).on("uploadDate", Sort.Direction.ASC));
+            mongoOperations.indexOps(FILES_COLLECTION)
+                    .createIndex(new Index().on(VARIANT_SOURCE_KEY, Sort.Direction.ASC).on(VARIANT_WIDTH_KEY, Sort.Direction.ASC));
+            mongoOperations.indexOps(CHUNKS_COLLECTION)
+                    .createIndex(new Index().on("files_id", Sort.Direction.ASC).on("n", Sort.Direction.ASC).unique());
+        } catch (DataAccessException e) {
+            log.warn("Could not create GridFS indexes: {}", e.getMessage());
         }
     }
 
-    public InputStream getFileStream(String id) throws IOException {
-        GridFSFile file = gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id)));
-        return gridFsOperations.getResource(file).getInputStream();
+    /**
+     * Stops the threads running chunk writes and read-ahead queries, once the requests
+     * using them are done.
+     */
+    @PreDestroy
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Stores the content with the chunk size {@link GridFsChunkPolicy} picks for its type
+     * and declared {@code size}, negative when unknown.
+     */
+    public String storeFile(InputStream content, String filename, String contentType, long size) {
+        int chunkSize = chunkPolicy.chunkSize(contentType, size);
+        return StorageObservation.observe(observationRegistry, StorageObservation.GRIDFS_WRITE, observation -> {
+            long start = System.nanoTime();
+            try (var transfer = metrics.transfer(StorageMetrics.Direction.IN)) {
+                GridFsChunkWriter.Written written = chunkWriter.write(content, filename, contentType, chunkSize,
+                        chunkPolicy.chunksPerBatch(chunkSize), observation);
+                transfer.add(written.length());
+                observeWritten(observation, written.length(), chunkSize);
+                return written.fileId().toString();
+            } catch (UploadStream.UploadRejectedException e) {
+                // The upload was aborted and its chunks removed; report why it was rejected
+                throw e.reason();
+            } catch (IOException | MongoException e) {
+                throw new StorageException("Failed to store file in GridFS", e);
+            } finally {
+                // Includes reading the upload, which overlaps with the chunk inserts
+                metrics.record(StorageMetrics.Phase.GRIDFS_WRITE, System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * Writes {@code content} as chunks {@code firstChunk} onwards of the GridFS object
+     * {@code fileId}, without making it readable yet; see {@link #finishFile}. Content
+     * longer than {@code maxChunks} chunks is rejected, and the chunks written are
+     * removed on any failure.
+     *
+     * @return the number of bytes written
+     */
+    public long writeChunks(String fileId, int firstChunk, int maxChunks, int chunkSize, InputStream content) {
+        return StorageObservation.observe(observationRegistry, StorageObservation.GRIDFS_WRITE, observation -> {
+            long start = System.nanoTime();
+            try (var transfer = metrics.transfer(StorageMetrics.Direction.IN)) {
+                long length = chunkWriter.writeChunks(content, new ObjectId(fileId), firstChunk, maxChunks, chunkSize,
+                        chunkPolicy.chunksPerBatch(chunkSize), observation);
+                transfer.add(length);
+                observeWritten(observation, length, chunkSize);
+                return length;
+            } catch (UploadStream.UploadRejectedException e) {
+                throw e.reason();
+            } catch (IOException | MongoException e) {
+                throw new StorageException("Failed to store file in GridFS", e);
+            } finally {
+                metrics.record(StorageMetrics.Phase.GRIDFS_WRITE, System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * Moves the chunks written by {@link #writeChunks} for {@code fromId} under
+     * {@code toId}, keeping their numbers. Moving chunks already moved does nothing.
+     */
+    public void moveChunks(String fromId, String toId) {
+        chunkWriter.moveChunks(new ObjectId(fromId), new ObjectId(toId));
+    }
+
+    /**
+     * Makes the chunks written by {@link #writeChunks} a readable GridFS file.
+     */
+    public void finishFile(String fileId, long length, int chunkSize, String filename, String contentType) {
+        chunkWriter.insertFile(new ObjectId(fileId), length, chunkSize, filename, contentType);
+    }
+
+    /**
+     * Reads the chunks of an object not yet finished by {@link #finishFile}, as if it were
+     * a file of {@code length} bytes.
+     */
+    public InputStream openChunks(String fileId, long length, int chunkSize) {
+        return new GridFsChunkInputStream(mongoOperations.getCollection(CHUNKS_COLLECTION),
+                new BsonObjectId(new ObjectId(fileId)), length, chunkSize, readAheadSettings, Map.of(), metrics,
+                observationRegistry);
+    }
+
+    /**
+     * Deletes a GridFS object whether or not it was finished, including chunks written
+     * without a files document.
+     */
+    public void deleteUnfinished(String fileId) {
+        deleteFile(fileId);
+        chunkWriter.deleteChunks(new ObjectId(fileId), 0, Integer.MAX_VALUE);
     }
 
+    /**
+     * Opens a GridFS file for sequential reading, with chunks read ahead of the caller.
+     */
+    public InputStream getFileStream(String id) {
+        return getResource(id).getInputStream();
+    }
+
+    /**
+     * Opens a GridFS file as a seekable resource that reads chunks directly from
+     * {@code fs.chunks}, starting at the chunk that holds the requested offset.
+     */
+    public GridFsChunkResource getResource(String id) {
+        GridFSFile file = StorageObservation.observe(observationRegistry, StorageObservation.GRIDFS_OPEN,
+                observation -> {
+                    GridFSFile found = metrics.time(StorageMetrics.Phase.STREAM_OPEN,
+                            () -> gridFsTemplate.findOne(new Query(Criteria.where("_id").is(id))));
+                    if (found == null) {
+                        throw new StorageFileNotFoundException("File not found in GridFS: " + id);
+                    }
+                    StorageObservation.attribute(observation, StorageObservation.FILE_SIZE, found.getLength());
+                    StorageObservation.attribute(observation, StorageObservation.CHUNK_SIZE, found.getChunkSize());
+                    StorageObservation.attribute(observation, StorageObservation.CHUNK_COUNT,
+                            chunkCount(found.getLength(), found.getChunkSize()));
+                    return found;
+                });
+        return new GridFsChunkResource(file, mongoOperations.getCollection(CHUNKS_COLLECTION), readAheadSettings,
+                metrics, observationRegistry);
+    }
+
+    /**
+     * Stores a variant of the GridFS object {@code sourceId}, {@code width} pixels wide.
+     */
+    public String storeVariant(String sourceId, int width, String contentType, byte[] content) {
+        Document metadata = new Document("source", sourceId).append("width", width);
+        try (var transfer = metrics.transfer(StorageMetrics.Direction.IN)) {
+            String id = metrics.time(StorageMetrics.Phase.GRIDFS_WRITE, () -> gridFsTemplate.store(
+                    new ByteArrayInputStream(content), sourceId + "/w" + width, contentType, metadata).toString());
+            transfer.add(content.length);
+            return id;
+        }
+    }
+
+    public Optional<GridFsChunkResource> findVariant(String sourceId, int width) {
+        GridFSFile file = metrics.time(StorageMetrics.Phase.STREAM_OPEN,
+                () -> gridFsTemplate.findOne(new Query(Criteria.where(VARIANT_SOURCE_KEY).is(sourceId)
+                        .and(VARIANT_WIDTH_KEY).is(width))));
+        return Optional.ofNullable(file)
+                .map(variant -> new GridFsChunkResource(variant, mongoOperations.getCollection(CHUNKS_COLLECTION),
+                        readAheadSettings, metrics, observationRegistry));
+    }
+
+    /**
+     * Deletes a GridFS object along with the variants derived from it.
+     */
     public void deleteFile(String id) {
         gridFsTemplate.delete(new Query(Criteria.where("_id").is(id)));
+        gridFsTemplate.delete(variantsOf(id));
+    }
+
+    private static void observeWritten(Observation observation, long length, int chunkSize) {
+        StorageObservation.attribute(observation, StorageObservation.BYTES, length);
+        StorageObservation.attribute(observation, StorageObservation.CHUNK_SIZE, chunkSize);
+        StorageObservation.attribute(observation, StorageObservation.CHUNK_COUNT, chunkCount(length, chunkSize));
+    }
+
+    private static long chunkCount(long length, int chunkSize) {
+        return (length + chunkSize - 1) / chunkSize;
+    }
+
+    static Query variantsOf(String sourceId) {
+        return new Query(Criteria.where(VARIANT_SOURCE_KEY).is(sourceId));
     }
 }
@@ -0,0 +1,193 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.model.FileMetadata;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the bytes of small files in direct buffers, keyed by SHA-256 checksum so files
+ * with identical content share one entry. The total size of the buffers is capped by
+ * {@code storage.content-cache.capacity}; the least recently used entries are evicted
+ * first. Cached content lives outside the Java heap and is served through read-only
+ * views, so repeated downloads neither touch GridFS nor allocate a copy per request.
+ * <p>
+ * Evicted buffers are dropped rather than reused, since a download still in flight may
+ * be reading one; their native memory is returned once the garbage collector clears
+ * them. The JVM triggers that collection when a new direct buffer would exceed
+ * {@code -XX:MaxDirectMemorySize}, so the flag is what bounds off-heap use: set it to
+ * the capacity plus headroom for the buffers of the I/O stack. A limit below the
+ * capacity is reported at startup.
+ */
+@Slf4j
+@Component
+public class HotContentCache {
+
+    private final boolean enabled;
+    private final long maxFileSize;
+    private final long capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public HotContentCache(StorageProperties storageProperties) {
+        StorageProperties.ContentCache properties = storageProperties.contentCache();
+        this.enabled = properties.enabled();
+        this.maxFileSize = properties.maxFileSize().toBytes();
+        this.capacity = properties.capacity().toBytes();
+        if (enabled) {
+            checkDirectMemoryLimit();
+        }
+    }
+
+    /**
+     * Returns the cached content of {@code metadata}, loading it from {@code source} on a
+     * miss. Files that are too large, or have no checksum, are served from
+     * {@code source} directly.
+     */
+    public Resource load(FileMetadata metadata, Supplier<Resource> source) {
+        if (!isCacheable(metadata)) {
+            return source.get();
+        }
+
+        ByteBuffer cached = get(metadata.checksum());
+        if (cached != null) {
+            hits.incrementAndGet();
+            return new ByteBufferResource(cached, describe(metadata));
+        }
+
+        misses.incrementAndGet();
+        Resource resource = source.get();
+        try {
+            ByteBuffer content = read(resource, metadata.size());
+            put(metadata.checksum(), content);
+            return new ByteBufferResource(content, describe(metadata));
+        } catch (IOException e) {
+            log.warn("Could not cache content of {}, serving it from storage: {}", metadata.originalName(), e.getMessage());
+            return resource;
+        }
+    }
+
+    public void evict(String checksum) {
+        if (checksum == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            ByteBuffer removed = entries.remove(checksum);
+            if (removed != null) {
+                usedBytes -= removed.capacity();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return CacheStats.of(hits.get(), misses.get(), 0, 0, 0, evictions.get(), 0);
+    }
+
+    private boolean isCacheable(FileMetadata metadata) {
+        return enabled
+                && metadata.checksum() != null
+                && metadata.size() > 0
+                && metadata.size() <= maxFileSize
+                && metadata.size() <= capacity;
+    }
+
+    private ByteBuffer get(String checksum) {
+        lock.lock();
+        try {
+            return entries.get(checksum);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(String checksum, ByteBuffer content) {
+        lock.lock();
+        try {
+            ByteBuffer previous = entries.put(checksum, content);
+            if (previous != null) {
+                usedBytes -= previous.capacity();
+            }
+            usedBytes += content.capacity();
+
+            Iterator<Map.Entry<String, ByteBuffer>> eldest = entries.entrySet().iterator();
+            while (usedBytes > capacity && eldest.hasNext()) {
+                Map.Entry<String, ByteBuffer> entry = eldest.next();
+                if (entry.getKey().equals(checksum)) {
+                    continue;
+                }
+                usedBytes -= entry.getValue().capacity();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkDirectMemoryLimit() {
+        HotSpotDiagnosticMXBean diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (diagnostics == null) {
+            return;
+        }
+        long limit = Long.parseLong(diagnostics.getVMOption("MaxDirectMemorySize").getValue());
+        if (limit == 0) {
+            // Unset, the JVM defaults it to the maximum heap size
+            limit = Runtime.getRuntime().maxMemory();
+        }
+        if (limit < capacity) {
+            log.warn("Content cache capacity of {} bytes exceeds the direct memory limit of {} bytes, "
+                    + "raise -XX:MaxDirectMemorySize", capacity, limit);
+        }
+    }
+
+    private static ByteBuffer read(Resource resource, long size) throws IOException {
+        ByteBuffer content = ByteBuffer.allocateDirect((int) size);
+        byte[] chunk = new byte[(int) Math.min(size, 64 * 1024)];
+        try (InputStream in = resource.getInputStream()) {
+            int n;
+            while (content.hasRemaining() && (n = in.read(chunk, 0, Math.min(chunk.length, content.remaining()))) != -1) {
+                content.put(chunk, 0, n);
+            }
+        }
+        if (content.hasRemaining()) {
+            throw new IOException("Stored content is shorter than its metadata size");
+        }
+        return content.flip();
+    }
+
+    private static String describe(FileMetadata metadata) {
+        return "Cached content [" + metadata.checksum() + "]";
+    }
+}
@@ -0,0 +1,55 @@
+package com.azvtech.file_management.storage;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MongoDB command listener that charges the latency of each command to the storage
+ * observation current on the thread that sent it. The blocking driver sends commands on
+ * the calling thread, so GridFS reads and writes that run queries on other threads open
+ * their observation's scope there.
+ */
+@Component
+public class MongoCommandObserver implements CommandListener {
+
+    private final ObservationRegistry observationRegistry;
+    private final Map<Integer, StorageObservation.Context> started = new ConcurrentHashMap<>();
+
+    public MongoCommandObserver(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        Observation current = observationRegistry.getCurrentObservation();
+        if (current != null && current.getContext() instanceof StorageObservation.Context context) {
+            started.put(event.getRequestId(), context);
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        completed(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        completed(event.getRequestId(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void completed(int requestId, long elapsedNanos) {
+        StorageObservation.Context context = started.remove(requestId);
+        if (context != null) {
+            context.mongoCommand(elapsedNanos);
+        }
+    }
+}
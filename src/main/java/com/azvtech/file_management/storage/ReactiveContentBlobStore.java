@@ -0,0 +1,62 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.model.ContentBlob;
+import com.azvtech.file_management.model.FileMetadata;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ContentBlobStore}, issuing the same atomic
+ * single-document updates, for the reactive serving mode.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveContentBlobStore {
+
+    private final ReactiveMongoOperations mongoOperations;
+
+    public ReactiveContentBlobStore(ReactiveMongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * @see ContentBlobStore#register(String, String, long, String, String)
+     */
+    public Mono<ContentBlob> register(String checksum, String gridFsId, long size, String contentEncoding,
+                                      String contentType) {
+        Update update = ContentBlobStore.registration(gridFsId, size, contentEncoding, contentType);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+
+        return mongoOperations.findAndModify(ContentBlobStore.byChecksum(checksum), update, options, ContentBlob.class)
+                // A concurrent upload inserted the same content first; increment that one
+                .onErrorResume(DuplicateKeyException.class, e -> mongoOperations.findAndModify(
+                        ContentBlobStore.byChecksum(checksum), update, options, ContentBlob.class));
+    }
+
+    /**
+     * @see ContentBlobStore#release(FileMetadata)
+     */
+    public Mono<ContentBlobStore.Release> release(FileMetadata metadata) {
+        if (metadata.checksum() == null) {
+            return Mono.just(ContentBlobStore.Release.UNTRACKED);
+        }
+
+        return mongoOperations.findAndModify(
+                        ContentBlobStore.ownedBy(metadata),
+                        new Update().inc("referenceCount", -1),
+                        FindAndModifyOptions.options().returnNew(true),
+                        ContentBlob.class)
+                .flatMap(blob -> blob.referenceCount() > 0
+                        ? Mono.just(ContentBlobStore.Release.SHARED)
+                        : mongoOperations.remove(ContentBlobStore.unreferenced(metadata), ContentBlob.class)
+                        .map(result -> result.getDeletedCount() > 0
+                                ? ContentBlobStore.Release.LAST_REFERENCE
+                                : ContentBlobStore.Release.SHARED))
+                .defaultIfEmpty(ContentBlobStore.Release.UNTRACKED);
+    }
+}
@@ -0,0 +1,35 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.model.FileMetadata;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of {@link StorageService} for the reactive serving mode. Content
+ * flows as {@link DataBuffer}s in both directions, with backpressure from the client
+ * connection down to GridFS.
+ */
+public sealed interface ReactiveStorageService permits ReactiveStorageServiceImpl {
+
+    /**
+     * Stores an upload as its buffers arrive. Use a negative {@code size} when the length
+     * is not known in advance.
+     */
+    Mono<Void> store(String originalName, String contentType, long size, Flux<DataBuffer> content);
+
+    Mono<FileMetadata> findByOriginalName(String originalName);
+
+    /**
+     * Streams the content of {@code metadata} as uploaded, one GridFS chunk per buffer,
+     * decoding it if it is stored compressed.
+     */
+    Flux<DataBuffer> load(FileMetadata metadata);
+
+    /**
+     * Streams the bytes of {@code metadata} as stored, in its {@code contentEncoding}.
+     */
+    Flux<DataBuffer> loadStored(FileMetadata metadata);
+
+    Mono<Void> delete(String originalName);
+}
@@ -0,0 +1,200 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.exception.StorageFileNotFoundException;
+import com.azvtech.file_management.model.ContentBlob;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.validation.FileValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsResource;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsTemplate;
+import org.springframework.data.mongodb.gridfs.ReactiveGridFsUpload;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Storage on the reactive MongoDB driver. Uploads go through the same single-pass
+ * inspection as {@link StorageServiceImpl}, applied to each buffer on its way to
+ * GridFS, and share its content addressing, so both modes can serve the same data.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public final class ReactiveStorageServiceImpl implements ReactiveStorageService {
+
+    private static final int DECODE_PREFETCH = 4;
+    private static final int DECODE_BUFFER_SIZE = 64 * 1024;
+
+    private final boolean allowDuplicateFiles;
+    private final FileValidator fileValidator;
+    private final ReactiveGridFsTemplate gridFsTemplate;
+    private final ReactiveMongoOperations mongoOperations;
+    private final ReactiveContentBlobStore blobStore;
+    private final GridFsChunkPolicy chunkPolicy;
+    private final StorageMetrics metrics;
+
+    public ReactiveStorageServiceImpl(
+            StorageProperties storageProperties,
+            ReactiveGridFsTemplate gridFsTemplate,
+            ReactiveMongoOperations mongoOperations,
+            ReactiveContentBlobStore blobStore,
+            GridFsChunkPolicy chunkPolicy,
+            FileValidator fileValidator,
+            StorageMetrics metrics) {
+        this.allowDuplicateFiles = storageProperties.allowDuplicateFiles();
+        this.fileValidator = fileValidator;
+        this.gridFsTemplate = gridFsTemplate;
+        this.mongoOperations = mongoOperations;
+        this.blobStore = blobStore;
+        this.chunkPolicy = chunkPolicy;
+        this.metrics = metrics;
+        log.info("ReactiveStorageService initialized with max file size: {}MB", storageProperties.maxFileSizeMb());
+    }
+
+    @Override
+    public Mono<Void> store(String originalName, String contentType, long size, Flux<DataBuffer> content) {
+        return rejectDuplicate(originalName)
+                .then(Mono.fromRunnable(() -> fileValidator.validate(originalName, contentType, size)))
+                .then(Mono.defer(() -> writeContent(originalName, contentType, size, content)))
+                .flatMap(metadata -> mongoOperations.insert(metadata)
+                        .onErrorResume(e -> releaseContent(metadata).then(Mono.error(e))))
+                .doOnNext(saved -> log.info("File stored successfully: {}", originalName))
+                .then();
+    }
+
+    @Override
+    public Mono<FileMetadata> findByOriginalName(String originalName) {
+        return mongoOperations.findOne(query(where("originalName").is(originalName)), FileMetadata.class)
+                .switchIfEmpty(Mono.error(() -> new StorageFileNotFoundException("File not found: " + originalName)));
+    }
+
+    @Override
+    public Flux<DataBuffer> load(FileMetadata metadata) {
+        if (metadata.contentEncoding() == null) {
+            return loadStored(metadata);
+        }
+        // Inflating is blocking stream code; run it off the event loop
+        return DataBufferUtils.readInputStream(
+                        () -> ContentCompression.decode(
+                                DataBufferUtils.subscriberInputStream(loadStored(metadata), DECODE_PREFETCH),
+                                metadata.contentEncoding()),
+                        DefaultDataBufferFactory.sharedInstance, DECODE_BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<DataBuffer> loadStored(FileMetadata metadata) {
+        return gridFsTemplate.findOne(query(where("_id").is(metadata.gridFsId())))
+                .switchIfEmpty(Mono.error(() ->
+                        new StorageFileNotFoundException("File not found in GridFS: " + metadata.gridFsId())))
+                .flatMap(gridFsTemplate::getResource)
+                .flatMapMany(ReactiveGridFsResource::getDownloadStream);
+    }
+
+    @Override
+    public Mono<Void> delete(String originalName) {
+        return findByOriginalName(originalName)
+                .flatMap(metadata -> mongoOperations.remove(metadata).then(releaseContent(metadata)))
+                .doOnSuccess(done -> log.info("File deleted successfully: {}", originalName));
+    }
+
+    private Mono<Void> rejectDuplicate(String originalName) {
+        if (allowDuplicateFiles) {
+            return Mono.empty();
+        }
+        return mongoOperations.exists(query(where("originalName").is(originalName)), FileMetadata.class)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.<Void>empty();
+                    }
+                    metrics.rejected("duplicate");
+                    return Mono.error(new StorageException.DuplicateFileException(originalName));
+                });
+    }
+
+    /**
+     * Writes the content to GridFS and registers it by checksum. The returned metadata
+     * is not saved yet.
+     */
+    private Mono<FileMetadata> writeContent(String originalName, String contentType, long size, Flux<DataBuffer> content) {
+        var inspection = new UploadInspection(FileValidator.CONTENT_HEAD_SIZE,
+                head -> fileValidator.validateContent(contentType, head), fileValidator::validateSize);
+        Flux<DataBuffer> inspected = content
+                .doOnNext(buffer -> inspect(inspection, buffer))
+                .doOnComplete(inspection::complete);
+
+        // A rejected upload errors the content publisher; the GridFS writer then drops written chunks
+        ReactiveGridFsUpload<ObjectId> upload = ReactiveGridFsUpload.fromPublisher(inspected)
+                .filename(originalName)
+                .contentType(contentType)
+                .chunkSize(chunkPolicy.chunkSize(contentType, size))
+                .build();
+        return gridFsTemplate.store(upload)
+                .onErrorMap(e -> !(e instanceof StorageException) && e.getCause() instanceof StorageException,
+                        Throwable::getCause)
+                .onErrorMap(e -> !(e instanceof StorageException),
+                        e -> new StorageException("Failed to store file in GridFS", e))
+                .flatMap(writtenId -> {
+                    String checksum = inspection.checksum();
+                    long bytesRead = inspection.bytesRead();
+                    // Stored as uploaded; an identical blob stored compressed keeps its coding
+                    return blobStore.register(checksum, writtenId.toString(), bytesRead, null, contentType)
+                            .flatMap(blob -> {
+                                if (blob.gridFsId().equals(writtenId.toString())) {
+                                    return Mono.just(blob);
+                                }
+                                // Identical content already stored keeps its object; drop the copy just written
+                                log.debug("Content of {} already stored as {}", originalName, blob.gridFsId());
+                                return gridFsTemplate.delete(query(where("_id").is(writtenId))).thenReturn(blob);
+                            })
+                            .map(blob -> newMetadata(originalName, contentType, blob, checksum));
+                });
+    }
+
+    private static void inspect(UploadInspection inspection, DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                inspection.update(buffers.next());
+            }
+        } catch (RuntimeException e) {
+            // The rejected buffer never reaches the GridFS writer, which would release it
+            DataBufferUtils.release(buffer);
+            throw e;
+        }
+    }
+
+    private Mono<Void> releaseContent(FileMetadata metadata) {
+        return blobStore.release(metadata)
+                .flatMap(release -> release == ContentBlobStore.Release.SHARED
+                        ? Mono.<Void>empty()
+                        : gridFsTemplate.delete(query(where("_id").is(metadata.gridFsId())))
+                        .then(gridFsTemplate.delete(GridFsService.variantsOf(metadata.gridFsId()))));
+    }
+
+    private FileMetadata newMetadata(String originalName, String contentType, ContentBlob blob, String checksum) {
+        return FileMetadata.builder()
+                .id(new ObjectId().toString())
+                .originalName(originalName)
+                .gridFsId(blob.gridFsId())
+                .contentType(contentType)
+                .size(blob.size())
+                .checksum(checksum)
+                .contentEncoding(blob.contentEncoding())
+                .uploadDate(LocalDateTime.now())
+                .build();
+    }
+}
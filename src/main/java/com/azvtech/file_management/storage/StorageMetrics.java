@@ -0,0 +1,154 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.validation.FileValidator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the blocking storage path, published on {@code /actuator/prometheus}:
+ * <ul>
+ *     <li>{@code storage.phase}: time spent in each {@link Phase} of a store or read</li>
+ *     <li>{@code storage.transfer.bytes}: bytes of each transfer to or from GridFS</li>
+ *     <li>{@code storage.transfers.active}: transfers to or from GridFS in progress</li>
+ *     <li>{@code storage.uploads.rejected}: uploads refused, by reason</li>
+ * </ul>
+ * Bytes are counted as stored in GridFS, so after compression at rest.
+ */
+@Component
+public class StorageMetrics {
+
+    public enum Phase {
+        VALIDATE("validate"),
+        GRIDFS_WRITE("gridfs.write"),
+        CHECKSUM("checksum"),
+        METADATA_SAVE("metadata.save"),
+        METADATA_LOOKUP("metadata.lookup"),
+        STREAM_OPEN("stream.open");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Direction {
+        IN("in"),
+        OUT("out");
+
+        private final String tag;
+
+        Direction(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Map<Direction, DistributionSummary> transferBytes = new EnumMap<>(Direction.class);
+    // Gauges only hold their state weakly; these fields keep it reachable
+    private final Map<Direction, AtomicInteger> activeTransfers = new EnumMap<>(Direction.class);
+
+    public StorageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, Timer.builder("storage.phase")
+                    .description("Time spent in one phase of storing or reading a file")
+                    .tag("phase", phase.tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        for (Direction direction : Direction.values()) {
+            transferBytes.put(direction, DistributionSummary.builder("storage.transfer.bytes")
+                    .description("Bytes written to or read from GridFS per transfer")
+                    .baseUnit("bytes")
+                    .tag("direction", direction.tag)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            AtomicInteger active = registry.gauge("storage.transfers.active",
+                    Tags.of("direction", direction.tag), new AtomicInteger());
+            activeTransfers.put(direction, active);
+        }
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public <T> T time(Phase phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void time(Phase phase, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        phases.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts a transfer, counted as active until {@link Transfer#close} is called.
+     */
+    public Transfer transfer(Direction direction) {
+        return new Transfer(direction);
+    }
+
+    /**
+     * Counts an upload refused for {@code reason}, alongside the rejections counted by
+     * {@link FileValidator}.
+     */
+    public void rejected(String reason) {
+        registry.counter(FileValidator.REJECTED_METRIC, "reason", reason).increment();
+    }
+
+    /**
+     * One transfer to or from GridFS. Closing it more than once has no effect, and a
+     * transfer that moved no bytes, such as a failed write or a stream closed unread,
+     * leaves the byte summary alone.
+     */
+    public final class Transfer implements AutoCloseable {
+        private final Direction direction;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private long bytes;
+
+        private Transfer(Direction direction) {
+            this.direction = direction;
+            activeTransfers.get(direction).incrementAndGet();
+        }
+
+        public void add(long n) {
+            bytes += n;
+        }
+
+        @Override
+        public void close() {
+            if (open.compareAndSet(true, false)) {
+                activeTransfers.get(direction).decrementAndGet();
+                if (bytes > 0) {
+                    transferBytes.get(direction).record(bytes);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.azvtech.file_management.storage;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Names and attributes of the observations along a file transfer, from the controller
+ * through {@link StorageServiceImpl} to the GridFS reads and writes. Each observation is
+ * a span of the trace recorded by {@link TransferTraceRecorder}; attributes are high
+ * cardinality key values, so they never become meter tags.
+ */
+public final class StorageObservation {
+
+    public static final String DOWNLOAD = "file.download";
+    public static final String UPLOAD = "file.upload";
+    public static final String STORE = "storage.store";
+    public static final String METADATA_LOOKUP = "storage.metadata.lookup";
+    public static final String METADATA_SAVE = "storage.metadata.save";
+    public static final String GRIDFS_OPEN = "storage.gridfs.open";
+    public static final String GRIDFS_READ = "storage.gridfs.read";
+    public static final String GRIDFS_WRITE = "storage.gridfs.write";
+
+    public static final String FILE_NAME = "file.name";
+    public static final String FILE_SIZE = "file.size";
+    public static final String CHUNK_SIZE = "chunk.size";
+    public static final String CHUNK_COUNT = "chunk.count";
+    public static final String BYTES = "bytes";
+    /**
+     * Time a GridFS read spent waiting for chunks; the rest of the read is spent writing
+     * to the client.
+     */
+    public static final String CHUNK_WAIT_MILLIS = "chunk.wait.ms";
+
+    private StorageObservation() {
+    }
+
+    /**
+     * Context of a storage observation, adding up the MongoDB commands run while it is
+     * the current observation, on any thread.
+     */
+    public static final class Context extends Observation.Context {
+        private final AtomicLong mongoCommands = new AtomicLong();
+        private final AtomicLong mongoNanos = new AtomicLong();
+
+        void mongoCommand(long elapsedNanos) {
+            mongoCommands.incrementAndGet();
+            mongoNanos.addAndGet(elapsedNanos);
+        }
+
+        public long mongoCommands() {
+            return mongoCommands.get();
+        }
+
+        public long mongoNanos() {
+            return mongoNanos.get();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ObservedCall<T, E extends Exception> {
+        T call(Observation observation) throws E;
+    }
+
+    @FunctionalInterface
+    public interface ObservedTask<E extends Exception> {
+        void run(Observation observation) throws E;
+    }
+
+    /**
+     * Starts an observation, a child of the current one if any.
+     */
+    public static Observation start(ObservationRegistry registry, String name) {
+        return Observation.createNotStarted(name, Context::new, registry).start();
+    }
+
+    /**
+     * Runs {@code call} as the current observation {@code name}, which records a failure
+     * and stops when it returns.
+     */
+    public static <T, E extends Exception> T observe(ObservationRegistry registry, String name,
+                                                     ObservedCall<T, E> call) throws E {
+        Observation observation = start(registry, name);
+        try (Observation.Scope scope = observation.openScope()) {
+            return call.call(observation);
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    /**
+     * Like {@link #observe} for a task without a result.
+     */
+    public static <E extends Exception> void run(ObservationRegistry registry, String name,
+                                                 ObservedTask<E> task) throws E {
+        observe(registry, name, observation -> {
+            task.run(observation);
+            return null;
+        });
+    }
+
+    public static void attribute(Observation observation, String key, long value) {
+        observation.highCardinalityKeyValue(key, Long.toString(value));
+    }
+
+    public static void attribute(Observation observation, String key, String value) {
+        observation.highCardinalityKeyValue(key, String.valueOf(value));
+    }
+}
@@ -1,11 +1,16 @@
 package com.azvtech.file_management.storage;
 
+import com.azvtech.file_management.dto.request.FileSearchCriteria;
+import com.azvtech.file_management.dto.response.FilePageDto;
 import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.FileUploadResult;
 import org.springframework.core.io.Resource;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 public sealed interface StorageService permits StorageServiceImpl{
 
@@ -14,14 +19,69 @@ public sealed interface StorageService permits StorageServiceImpl{
 
     void store(MultipartFile file);
 
-    void storeMultiple(List<MultipartFile> files);
+    /**
+     * Stores an upload straight from its stream, without staging it first.
+     * Use a negative {@code size} when the length is not known in advance.
+     */
+    void store(String originalName, String contentType, long size, InputStream content);
 
-    Resource loadAsResource(String filename);
+    /**
+     * Like {@link #store(String, String, long, InputStream)}, rejecting the upload unless
+     * its SHA-256 equals {@code expectedChecksum}.
+     */
+    void store(String originalName, String contentType, long size, InputStream content, String expectedChecksum);
+
+    /**
+     * Stores a file whose content, identified by its SHA-256 {@code checksum}, is already
+     * held by the service, without transferring the bytes again. The content must have
+     * been stored with the same {@code contentType}.
+     *
+     * @return {@code false} if no content with that checksum is stored under that type
+     */
+    boolean storeExisting(String originalName, String contentType, String checksum);
+
+    /**
+     * Stores a file whose content was already written to GridFS as {@code gridFsId}, such
+     * as the parts of a resumable upload, with its SHA-256 {@code checksum}. The object is
+     * deleted if the file is rejected or its content turns out to be stored already.
+     */
+    void storeWritten(String originalName, String contentType, String gridFsId, long size, String checksum);
+
+    /**
+     * Stores a batch of files concurrently. Files are validated and checked for duplicates
+     * up front; every non-empty file gets its own result, in request order.
+     */
+    List<FileUploadResult> storeMultiple(List<MultipartFile> files);
+
+    /**
+     * Loads the content of a file as uploaded, decoding it if it is stored compressed.
+     */
+    Resource loadAsResource(FileMetadata metadata);
+
+    /**
+     * Loads the bytes of a file as stored, in its {@code contentEncoding}, for clients
+     * that accept that coding.
+     */
+    Resource loadStoredResource(FileMetadata metadata);
 
     FileMetadata findByOriginalName(String originalName);
 
+    FileMetadata findByGridFsId(String gridFsId);
+
     List<FileMetadata> loadAllMetadata();
 
+    /**
+     * Lists files matching {@code criteria} newest first, {@code limit} at a time.
+     * Pass the previous page's {@code nextCursor} to continue, or {@code null} to start.
+     */
+    FilePageDto listMetadata(FileSearchCriteria criteria, String cursor, int limit);
+
+    /**
+     * Streams every file matching {@code criteria} without holding the result in memory.
+     * The caller must close the stream.
+     */
+    Stream<FileMetadata> streamMetadata(FileSearchCriteria criteria);
+
     void delete(String originalName);
 
     @Transactional(readOnly = true)
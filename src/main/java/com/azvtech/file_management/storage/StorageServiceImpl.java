@@ -1,15 +1,21 @@
 package com.azvtech.file_management.storage;
 
 import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.dto.request.FileSearchCriteria;
+import com.azvtech.file_management.dto.response.FilePageDto;
 import com.azvtech.file_management.exception.StorageException;
 import com.azvtech.file_management.exception.StorageFileNotFoundException;
+import com.azvtech.file_management.model.ContentBlob;
 import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.FileUploadResult;
 import com.azvtech.file_management.repository.FileMetadataRepository;
+import com.azvtech.file_management.repository.ListingCursor;
 import com.azvtech.file_management.validation.FileValidator;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.io.IOUtils;
-import org.springframework.core.io.InputStreamResource;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,137 +23,462 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Transactional
 public final class StorageServiceImpl implements StorageService {
 
     private final boolean allowDuplicateFiles;
+    private final int batchConcurrency;
     private final GridFsService gridFsService;
     private final FileValidator fileValidator;
     private final FileMetadataRepository metadataRepo;
+    private final FileMetadataCache metadataCache;
+    private final HotContentCache contentCache;
+    private final ContentBlobStore blobStore;
+    private final ContentCompression compression;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StorageMetrics metrics;
+    private final ObservationRegistry observationRegistry;
 
     public StorageServiceImpl(
             StorageProperties storageProperties,
             FileMetadataRepository metadataRepo,
-            GridFsService gridFsService) {
+            FileMetadataCache metadataCache,
+            HotContentCache contentCache,
+            ContentBlobStore blobStore,
+            ContentCompression compression,
+            GridFsService gridFsService,
+            ApplicationEventPublisher eventPublisher,
+            FileValidator fileValidator,
+            StorageMetrics metrics,
+            ObservationRegistry observationRegistry) {
         this.allowDuplicateFiles = storageProperties.allowDuplicateFiles();
-        this.fileValidator = new FileValidator(
-                storageProperties.allowedMimeTypes(),
-                storageProperties.allowedExtensions(),
-                storageProperties.maxFileSizeMb() * 1024 * 1024
-        );
+        this.batchConcurrency = storageProperties.batch().maxConcurrency();
+        this.fileValidator = fileValidator;
         this.metadataRepo = metadataRepo;
+        this.metadataCache = metadataCache;
+        this.contentCache = contentCache;
+        this.blobStore = blobStore;
+        this.compression = compression;
         this.gridFsService = gridFsService;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
         log.info("StorageService initialized with max file size: {}MB", storageProperties.maxFileSizeMb());
     }
 
     @Override
     public void store(MultipartFile file) {
         if (!allowDuplicateFiles && existsByOriginalName(file.getOriginalFilename())) {
-            throw new StorageException.DuplicateFileException(file.getOriginalFilename());
+            throw duplicate(file.getOriginalFilename());
         }
 
-        fileValidator.validate(file); // Já lança InvalidFileException se houver erro
+        metrics.time(StorageMetrics.Phase.VALIDATE, () -> fileValidator.validate(file));
 
-        try {
-            String gridFsId = gridFsService.storeFile(file);
-            saveFileMetadata(file, gridFsId);
-            log.info("File stored successfully: {}", file.getOriginalFilename());
+        try (InputStream content = file.getInputStream()) {
+            storeContent(file.getOriginalFilename(), file.getContentType(), file.getSize(), content, null);
         } catch (IOException e) {
             throw new StorageException("Failed to store file", e);
         }
     }
 
+    @Override
+    public void store(String originalName, String contentType, long size, InputStream content) {
+        store(originalName, contentType, size, content, null);
+    }
+
+    @Override
+    public void store(String originalName, String contentType, long size, InputStream content,
+                      String expectedChecksum) {
+        if (!allowDuplicateFiles && existsByOriginalName(originalName)) {
+            throw duplicate(originalName);
+        }
+
+        metrics.time(StorageMetrics.Phase.VALIDATE, () -> fileValidator.validate(originalName, contentType, size));
+        storeContent(originalName, contentType, size, content, expectedChecksum);
+    }
 
     @Override
-    public void storeMultiple(List<MultipartFile> files) {
+    public boolean storeExisting(String originalName, String contentType, String checksum) {
+        if (!allowDuplicateFiles && existsByOriginalName(originalName)) {
+            throw duplicate(originalName);
+        }
+        metrics.time(StorageMetrics.Phase.VALIDATE, () -> fileValidator.validate(originalName, contentType, -1));
+
+        Optional<ContentBlob> blob = blobStore.acquire(checksum, contentType);
+        if (blob.isEmpty()) {
+            return false;
+        }
+        try {
+            long size = blob.get().size();
+            metrics.time(StorageMetrics.Phase.VALIDATE, () -> fileValidator.validate(originalName, contentType, size));
+            saveFileMetadata(newMetadata(originalName, contentType, blob.get(), checksum), false);
+        } catch (RuntimeException e) {
+            releaseContent(checksum, blob.get().gridFsId());
+            throw e;
+        }
+        log.info("File stored from existing content: {}", originalName);
+        return true;
+    }
+
+    @Override
+    public void storeWritten(String originalName, String contentType, String gridFsId, long size, String checksum) {
+        ContentBlob blob;
+        try {
+            if (!allowDuplicateFiles && existsByOriginalName(originalName)) {
+                throw duplicate(originalName);
+            }
+            metrics.time(StorageMetrics.Phase.VALIDATE, () -> fileValidator.validate(originalName, contentType, size));
+            blob = blobStore.register(checksum, gridFsId, size, null, contentType);
+        } catch (RuntimeException e) {
+            gridFsService.deleteFile(gridFsId);
+            throw e;
+        }
+        if (!blob.gridFsId().equals(gridFsId)) {
+            gridFsService.deleteFile(gridFsId);
+            log.debug("Content of {} already stored as {}", originalName, blob.gridFsId());
+        }
+
+        FileMetadata metadata = newMetadata(originalName, contentType, blob, checksum);
+        try {
+            saveFileMetadata(metadata, blob.gridFsId().equals(gridFsId));
+        } catch (RuntimeException e) {
+            releaseContent(checksum, blob.gridFsId());
+            throw e;
+        }
+        log.info("File stored from upload session: {}", originalName);
+    }
+
+    @Override
+    public List<FileUploadResult> storeMultiple(List<MultipartFile> files) {
         if (files == null || files.isEmpty()) {
             throw new StorageException("No files sent.");
         }
 
-        List<String> errors = new ArrayList<>();
+        List<MultipartFile> batch = files.stream().filter(file -> !file.isEmpty()).toList();
+        FileUploadResult[] results = new FileUploadResult[batch.size()];
 
-        for (var file : files) {
+        // Reject invalid files and duplicates, within the batch or already stored, before any write
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            MultipartFile file = batch.get(i);
             try {
-                if (!file.isEmpty()) {
-                    store(file);
+                metrics.time(StorageMetrics.Phase.VALIDATE, () -> fileValidator.validate(file));
+                if (!allowDuplicateFiles && !names.add(file.getOriginalFilename())) {
+                    throw duplicate(file.getOriginalFilename());
                 }
             } catch (StorageException e) {
-                errors.add("%s: %s".formatted(file.getOriginalFilename(), e.getMessage()));
+                results[i] = FileUploadResult.failed(file.getOriginalFilename(), e.getMessage());
             }
         }
+        rejectStoredNames(batch, results);
 
-        if (!errors.isEmpty()) {
-            throw new StorageException("Upload errors: " + String.join("; ", errors));
-        }
+        // Write contents in parallel, then save all metadata with a single bulk insert
+        Written[] written = writeBatch(batch, results);
+        saveBatchMetadata(batch, written, results);
+        return List.of(results);
     }
 
     @Override
-    public Resource loadAsResource(String gridFsId) {
-        try {
-            InputStream inputStream = gridFsService.getFileStream(gridFsId);
-            return new InputStreamResource(inputStream);
-        } catch (IOException e) {
-            throw new StorageFileNotFoundException("Could not read file: " + gridFsId, e);
-        }
+    public Resource loadAsResource(FileMetadata metadata) {
+        return contentCache.load(metadata, () -> {
+            Resource stored = gridFsService.getResource(metadata.gridFsId());
+            return metadata.contentEncoding() == null ? stored
+                    : new DecodedResource(stored, metadata.contentEncoding(), metadata.size());
+        });
+    }
+
+    @Override
+    public Resource loadStoredResource(FileMetadata metadata) {
+        return gridFsService.getResource(metadata.gridFsId());
     }
 
     @Override
     @Transactional(readOnly = true)
     public FileMetadata findByOriginalName(String originalName) {
-        return metadataRepo.findByOriginalName(originalName)
-                .orElseThrow(() -> new StorageFileNotFoundException("File not found: " + originalName));
+        return StorageObservation.observe(observationRegistry, StorageObservation.METADATA_LOOKUP, observation ->
+                metadataCache.findByOriginalName(originalName,
+                                name -> metrics.time(StorageMetrics.Phase.METADATA_LOOKUP, () -> metadataRepo.findByOriginalName(name)))
+                        .orElseThrow(() -> new StorageFileNotFoundException("File not found: " + originalName)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FileMetadata findByGridFsId(String gridFsId) {
+        return StorageObservation.observe(observationRegistry, StorageObservation.METADATA_LOOKUP, observation ->
+                metadataCache.findByGridFsId(gridFsId,
+                                id -> metrics.time(StorageMetrics.Phase.METADATA_LOOKUP, () -> metadataRepo.findFirstByGridFsId(id)))
+                        .orElseThrow(() -> new StorageFileNotFoundException("File not found: " + gridFsId)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<FileMetadata> loadAllMetadata() {
-        return metadataRepo.findAll();
+        return metadataCache.findAll(() -> {
+            try (Stream<FileMetadata> all = metadataRepo.streamAll(FileSearchCriteria.none())) {
+                return all.toList();
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FilePageDto listMetadata(FileSearchCriteria criteria, String cursor, int limit) {
+        ListingCursor after = cursor == null ? null : ListingCursor.decode(cursor);
+        // One extra document tells whether another page follows
+        List<FileMetadata> items = metadataRepo.findPage(criteria, after, limit + 1);
+        if (items.size() <= limit) {
+            return new FilePageDto(items, null);
+        }
+        List<FileMetadata> page = items.subList(0, limit);
+        return new FilePageDto(page, ListingCursor.after(page.getLast()).encode());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Stream<FileMetadata> streamMetadata(FileSearchCriteria criteria) {
+        return metadataRepo.streamAll(criteria);
     }
 
     @Override
     public void delete(String originalName) {
-        FileMetadata metadata = metadataRepo.findByOriginalName(originalName)
+        FileMetadata metadata = metrics.time(StorageMetrics.Phase.METADATA_LOOKUP,
+                        () -> metadataRepo.findByOriginalName(originalName))
                 .orElseThrow(() -> new StorageFileNotFoundException("File not found: " + originalName));
 
-        gridFsService.deleteFile(metadata.gridFsId());
         metadataRepo.delete(metadata);
+        metadataCache.evict(metadata);
+
+        if (blobStore.release(metadata) != ContentBlobStore.Release.SHARED) {
+            gridFsService.deleteFile(metadata.gridFsId());
+            contentCache.evict(metadata.checksum());
+        }
         log.info("File deleted successfully: {}", originalName);
     }
 
     @Transactional(readOnly = true)
     @Override
     public boolean existsByOriginalName(String originalName) {
-        return metadataRepo.findByOriginalName(originalName).isPresent();
+        return StorageObservation.observe(observationRegistry, StorageObservation.METADATA_LOOKUP, observation ->
+                metrics.time(StorageMetrics.Phase.METADATA_LOOKUP, () -> metadataRepo.existsByOriginalName(originalName)));
     }
 
-    private void saveFileMetadata(MultipartFile file, String gridFsId) throws IOException {
-        var metadata = FileMetadata.builder()
-                .originalName(file.getOriginalFilename())
-                .gridFsId(gridFsId)
-                .contentType(file.getContentType())
-                .size(file.getSize())
-                .checksum(calculateChecksum(file))
-                .uploadDate(LocalDateTime.now())
-                .build();
+    private void rejectStoredNames(List<MultipartFile> batch, FileUploadResult[] results) {
+        if (allowDuplicateFiles) {
+            return;
+        }
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] == null) {
+                candidates.add(batch.get(i).getOriginalFilename());
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> stored = metrics.time(StorageMetrics.Phase.METADATA_LOOKUP,
+                        () -> metadataRepo.findOriginalNamesIn(candidates)).stream()
+                .map(FileMetadata::originalName)
+                .collect(Collectors.toSet());
+        for (int i = 0; i < batch.size(); i++) {
+            String filename = batch.get(i).getOriginalFilename();
+            if (results[i] == null && stored.contains(filename)) {
+                results[i] = FileUploadResult.failed(filename, duplicate(filename).getMessage());
+            }
+        }
+    }
 
-        metadataRepo.save(metadata);
+    private Written[] writeBatch(List<MultipartFile> batch, FileUploadResult[] results) {
+        Semaphore permits = new Semaphore(batchConcurrency);
+        List<Future<Written>> pending = new ArrayList<>(Collections.nCopies(batch.size(), null));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (results[i] == null) {
+                    MultipartFile file = batch.get(i);
+                    pending.set(i, executor.submit(() -> writeBatchFile(file, permits)));
+                }
+            }
+        }
+
+        Written[] written = new Written[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Future<Written> future = pending.get(i);
+            if (future == null) {
+                continue;
+            }
+            if (future.state() == Future.State.SUCCESS) {
+                written[i] = future.resultNow();
+            } else {
+                results[i] = FileUploadResult.failed(batch.get(i).getOriginalFilename(), failureMessage(future.exceptionNow()));
+            }
+        }
+        return written;
     }
 
-    private String calculateChecksum(MultipartFile file) throws IOException {
-        try (InputStream is = file.getInputStream()) {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(IOUtils.toByteArray(is));
-            return Hex.encodeHexString(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new StorageException("Failed to calculate checksum", e);
+    private Written writeBatchFile(MultipartFile file, Semaphore permits) throws IOException, InterruptedException {
+        permits.acquire();
+        try (InputStream content = file.getInputStream()) {
+            return writeContent(file.getOriginalFilename(), file.getContentType(), file.getSize(), content, null);
+        } finally {
+            permits.release();
         }
     }
+
+    private void saveBatchMetadata(List<MultipartFile> batch, Written[] written, FileUploadResult[] results) {
+        List<Integer> indexes = new ArrayList<>();
+        List<FileMetadata> metadata = new ArrayList<>();
+        for (int i = 0; i < written.length; i++) {
+            if (written[i] != null) {
+                indexes.add(i);
+                metadata.add(written[i].metadata());
+            }
+        }
+
+        Map<Integer, String> failures;
+        try {
+            failures = metrics.time(StorageMetrics.Phase.METADATA_SAVE,
+                    () -> metadataRepo.insertAllReportingFailures(metadata));
+        } catch (RuntimeException e) {
+            log.error("Failed to save batch metadata: {}", e.getMessage(), e);
+            failures = new HashMap<>();
+            for (int k = 0; k < metadata.size(); k++) {
+                failures.put(k, "Failed to save file metadata");
+            }
+        }
+
+        for (int k = 0; k < metadata.size(); k++) {
+            FileMetadata saved = metadata.get(k);
+            int i = indexes.get(k);
+            String failure = failures.get(k);
+            if (failure == null) {
+                metadataCache.put(saved);
+                eventPublisher.publishEvent(new FileStoredEvent(saved, written[i].newContent()));
+                results[i] = FileUploadResult.stored(saved.originalName());
+                log.info("File stored successfully: {}", saved.originalName());
+            } else {
+                releaseContent(saved.checksum(), saved.gridFsId());
+                results[i] = FileUploadResult.failed(batch.get(i).getOriginalFilename(), failure);
+            }
+        }
+    }
+
+    private static String failureMessage(Throwable failure) {
+        if (failure instanceof StorageException) {
+            return failure.getMessage();
+        }
+        log.error("Failed to store file from batch: {}", failure.getMessage(), failure);
+        return "Failed to store file";
+    }
+
+    private void storeContent(String originalName, String contentType, long size, InputStream content,
+                              String expectedChecksum) {
+        StorageObservation.run(observationRegistry, StorageObservation.STORE, observation -> {
+            StorageObservation.attribute(observation, StorageObservation.FILE_NAME, originalName);
+            Written written = writeContent(originalName, contentType, size, content, expectedChecksum);
+            FileMetadata metadata = written.metadata();
+            StorageObservation.attribute(observation, StorageObservation.FILE_SIZE, metadata.size());
+            try {
+                saveFileMetadata(metadata, written.newContent());
+            } catch (RuntimeException e) {
+                releaseContent(metadata.checksum(), metadata.gridFsId());
+                throw e;
+            }
+        });
+        log.info("File stored successfully: {}", originalName);
+    }
+
+    /**
+     * Metadata of content written by {@link #writeContent}, not saved yet. {@code newContent}
+     * is {@code false} when identical content was already stored and the copy was dropped.
+     */
+    private record Written(FileMetadata metadata, boolean newContent) {
+    }
+
+    /**
+     * Writes the content to GridFS and registers it by checksum. Content whose checksum is
+     * not {@code expectedChecksum}, when given, is deleted again and rejected.
+     */
+    private Written writeContent(String originalName, String contentType, long size, InputStream content,
+                                      String expectedChecksum) {
+        try (var upload = new UploadStream(content, FileValidator.CONTENT_HEAD_SIZE,
+                head -> fileValidator.validateContent(contentType, head), fileValidator::validateSize);
+             var encoded = compression.encode(upload, contentType)) {
+            String writtenId = gridFsService.storeFile(encoded.content(), originalName, contentType, size);
+            String checksum = upload.checksum();
+            // Hashing runs inside the GridFS write, interleaved with reading the upload
+            metrics.record(StorageMetrics.Phase.CHECKSUM, upload.digestNanos());
+            if (expectedChecksum != null && !expectedChecksum.equals(checksum)) {
+                gridFsService.deleteFile(writtenId);
+                metrics.rejected("checksum-mismatch");
+                throw new StorageException.InvalidFileException(
+                        "Content SHA-256 " + checksum + " does not match the declared " + expectedChecksum);
+            }
+
+            // Identical content already stored keeps its object; drop the copy just written
+            ContentBlob blob = blobStore.register(checksum, writtenId, upload.bytesRead(), encoded.encoding(),
+                    contentType);
+            boolean newContent = blob.gridFsId().equals(writtenId);
+            if (!newContent) {
+                gridFsService.deleteFile(writtenId);
+                log.debug("Content of {} already stored as {}", originalName, blob.gridFsId());
+            }
+            return new Written(newMetadata(originalName, contentType, blob, checksum), newContent);
+        } catch (UploadStream.UploadRejectedException e) {
+            // Rejected while sampling for compression, before anything was written
+            throw e.reason();
+        } catch (IOException e) {
+            throw new StorageException("Failed to store file", e);
+        }
+    }
+
+    private StorageException.DuplicateFileException duplicate(String originalName) {
+        metrics.rejected("duplicate");
+        return new StorageException.DuplicateFileException(originalName);
+    }
+
+    private void releaseContent(String checksum, String gridFsId) {
+        var reference = FileMetadata.builder().checksum(checksum).gridFsId(gridFsId).build();
+        if (blobStore.release(reference) != ContentBlobStore.Release.SHARED) {
+            gridFsService.deleteFile(gridFsId);
+        }
+    }
+
+    private FileMetadata newMetadata(String originalName, String contentType, ContentBlob blob, String checksum) {
+        return FileMetadata.builder()
+                .id(new ObjectId().toString())
+                .originalName(originalName)
+                .gridFsId(blob.gridFsId())
+                .contentType(contentType)
+                .size(blob.size())
+                .checksum(checksum)
+                .contentEncoding(blob.contentEncoding())
+                .uploadDate(LocalDateTime.now())
+                .build();
+    }
+
+    private void saveFileMetadata(FileMetadata metadata, boolean newContent) {
+        FileMetadata saved = StorageObservation.observe(observationRegistry, StorageObservation.METADATA_SAVE,
+                observation -> metrics.time(StorageMetrics.Phase.METADATA_SAVE, () -> metadataRepo.save(metadata)));
+        metadataCache.put(saved);
+        eventPublisher.publishEvent(new FileStoredEvent(saved, newContent));
+    }
 }
@@ -0,0 +1,219 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.model.FileMetadata;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resized variants of stored images. A variant is rendered on first request by a bounded
+ * worker pool and stored in GridFS as an object derived from the original's content, so
+ * later requests, on any node, are served from storage. Concurrent requests for the same
+ * variant share one rendering. Variants are deleted with the content they derive from.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ThumbnailService {
+
+    /**
+     * A variant ready to be served.
+     */
+    public record Thumbnail(Resource content, String contentType, int width) {
+    }
+
+    private final StorageService storageService;
+    private final GridFsService gridFsService;
+    private final List<Integer> widths;
+    private final long maxPixels;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, CompletableFuture<String>> rendering = new ConcurrentHashMap<>();
+
+    public ThumbnailService(StorageProperties storageProperties, StorageService storageService,
+                            GridFsService gridFsService) {
+        StorageProperties.Thumbnails properties = storageProperties.thumbnails();
+        this.storageService = storageService;
+        this.gridFsService = gridFsService;
+        this.widths = properties.widths();
+        this.maxPixels = properties.maxPixels();
+        this.workers = new ThreadPoolExecutor(properties.workers(), properties.workers(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.queueCapacity()), Thread.ofPlatform().name("thumbnail-", 0).factory());
+    }
+
+    /**
+     * Width of the variant served for a request of {@code requestedWidth} pixels: the
+     * nearest configured width at or above it, or the largest one.
+     */
+    public int variantWidth(int requestedWidth) {
+        return widths.stream().filter(width -> width >= requestedWidth).findFirst().orElse(widths.getLast());
+    }
+
+    public Thumbnail thumbnail(FileMetadata metadata, int requestedWidth) {
+        if (metadata.contentType() == null || !metadata.contentType().startsWith("image/")) {
+            throw new StorageException.InvalidFileException("Thumbnails are only available for images");
+        }
+        int width = variantWidth(requestedWidth);
+        String contentType = variantType(metadata.contentType());
+
+        var stored = gridFsService.findVariant(metadata.gridFsId(), width);
+        if (stored.isPresent()) {
+            return new Thumbnail(stored.get(), contentType, width);
+        }
+
+        String key = metadata.gridFsId() + "/" + width;
+        CompletableFuture<String> variant;
+        try {
+            variant = rendering.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(
+                    () -> render(metadata, width, contentType), workers));
+        } catch (RejectedExecutionException e) {
+            throw new StorageException.BusyException("Too many thumbnails being generated, try again later");
+        }
+        try {
+            return new Thumbnail(gridFsService.getResource(await(variant)), contentType, width);
+        } finally {
+            rendering.remove(key, variant);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private String render(FileMetadata metadata, int width, String contentType) {
+        try {
+            byte[] content = resize(storageService.loadAsResource(metadata), width, formatName(contentType), maxPixels);
+            String variantId = gridFsService.storeVariant(metadata.gridFsId(), width, contentType, content);
+            log.debug("Stored {}px thumbnail of {} as {}", width, metadata.originalName(), variantId);
+            return variantId;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the image and renders it at {@code width}. Streams are cached in memory
+     * explicitly rather than through {@link ImageIO#setUseCache}, a JVM-wide setting that
+     * would otherwise spool every stream to a temp file.
+     */
+    private static byte[] resize(Resource source, int width, String formatName, long maxPixels) throws IOException {
+        try (InputStream content = source.getInputStream();
+             ImageInputStream input = new MemoryCacheImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new StorageException.InvalidFileException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // Dimensions come from the header; refuse huge images before decoding any pixel
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if ((long) sourceWidth * sourceHeight > maxPixels) {
+                    throw new StorageException.InvalidFileException("Image of %dx%d pixels is too large for a thumbnail"
+                            .formatted(sourceWidth, sourceHeight));
+                }
+
+                // Decode at no more than twice the target size on each axis; scaling smooths the rest
+                int targetWidth = Math.min(width, sourceWidth);
+                int targetHeight = Math.max(1, (int) Math.round(sourceHeight * (double) targetWidth / sourceWidth));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(Math.max(1, sourceWidth / (targetWidth * 2)),
+                        Math.max(1, sourceHeight / (targetHeight * 2)), 0, 0);
+                BufferedImage image = scale(reader.read(0, param), width, formatName);
+
+                var out = new ByteArrayOutputStream();
+                try (ImageOutputStream output = new MemoryCacheImageOutputStream(out)) {
+                    if (!ImageIO.write(image, formatName, output)) {
+                        throw new StorageException("No image writer for " + formatName);
+                    }
+                }
+                return out.toByteArray();
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales {@code image} down to {@code width}, keeping its aspect ratio. Images already
+     * narrower are only converted, never enlarged.
+     */
+    private static BufferedImage scale(BufferedImage image, int width, String formatName) {
+        int targetWidth = Math.min(width, image.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * (double) targetWidth / image.getWidth()));
+        boolean opaque = formatName.equals("jpeg");
+
+        var scaled = new BufferedImage(targetWidth, targetHeight,
+                opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (opaque) {
+                // JPEG has no alpha channel; flatten transparent pixels onto white
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, targetWidth, targetHeight);
+            }
+            graphics.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * JPEG originals get JPEG thumbnails; everything else is rendered as PNG.
+     */
+    private static String variantType(String contentType) {
+        return contentType.equals("image/jpeg") ? "image/jpeg" : "image/png";
+    }
+
+    private static String formatName(String contentType) {
+        return contentType.equals("image/jpeg") ? "jpeg" : "png";
+    }
+
+    private static String await(CompletableFuture<String> variant) {
+        try {
+            return variant.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof StorageException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw new StorageException("Failed to generate thumbnail", cause.getCause());
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.dto.response.TransferTraceDto;
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local exporter for the {@link StorageObservation} spans. Storage observations are
+ * collected on the outermost observation they run under, usually the
+ * {@code http.server.requests} observation of the request, and written out as one trace
+ * when it stops: traces slower than {@code storage.tracing.slow-threshold} are logged and
+ * the most recent ones kept for the stats endpoint, faster ones are logged at debug level.
+ * Storage work outside a request, such as background jobs, forms a trace of its own.
+ */
+@Slf4j
+@Component
+public class TransferTraceRecorder implements ObservationHandler<Observation.Context> {
+
+    private static final String START_KEY = TransferTraceRecorder.class.getName() + ".start";
+    private static final String SPANS_KEY = TransferTraceRecorder.class.getName() + ".spans";
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final int slowHistory;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<TransferTraceDto> recent = new ArrayDeque<>();
+
+    public TransferTraceRecorder(StorageProperties storageProperties) {
+        StorageProperties.Tracing properties = storageProperties.tracing();
+        this.enabled = properties.enabled();
+        this.slowThresholdNanos = properties.slowThreshold().toNanos();
+        this.slowHistory = properties.slowHistory();
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return enabled;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(START_KEY, System.nanoTime());
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Long start = context.get(START_KEY);
+        if (start == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        Observation.Context root = root(context);
+
+        if (context instanceof StorageObservation.Context storage) {
+            Queue<RecordedSpan> spans = root.computeIfAbsent(SPANS_KEY, key -> new ConcurrentLinkedQueue<>());
+            spans.add(new RecordedSpan(storage.getName(), parentName(storage), start, end, attributes(storage)));
+        }
+        if (root == context) {
+            Queue<RecordedSpan> spans = context.get(SPANS_KEY);
+            if (spans != null) {
+                completed(context, start, end, spans);
+            }
+        }
+    }
+
+    public List<TransferTraceDto> recent() {
+        lock.lock();
+        try {
+            return List.copyOf(recent);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void completed(Observation.Context root, long start, long end, Queue<RecordedSpan> recorded) {
+        long durationNanos = end - start;
+        boolean slow = durationNanos >= slowThresholdNanos;
+        if (!slow && !log.isDebugEnabled()) {
+            return;
+        }
+
+        List<TransferTraceDto.Span> spans = recorded.stream()
+                .sorted(Comparator.comparingLong(RecordedSpan::start))
+                .map(span -> new TransferTraceDto.Span(span.name(), span.parent(), millis(span.start() - start),
+                        millis(span.end() - span.start()), span.attributes()))
+                .toList();
+        String name = root.getContextualName() != null ? root.getContextualName() : root.getName();
+        var trace = new TransferTraceDto(Instant.now(), name, millis(durationNanos), spans);
+
+        if (!slow) {
+            log.debug("Transfer {} took {}ms{}", name, trace.durationMillis(), format(spans));
+            return;
+        }
+        log.warn("Slow transfer {} took {}ms{}", name, trace.durationMillis(), format(spans));
+        lock.lock();
+        try {
+            if (recent.size() == slowHistory) {
+                recent.removeFirst();
+            }
+            recent.addLast(trace);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Observation.Context root(Observation.Context context) {
+        Observation.Context root = context;
+        ObservationView parent = root.getParentObservation();
+        while (parent != null && parent.getContextView() instanceof Observation.Context parentContext) {
+            root = parentContext;
+            parent = root.getParentObservation();
+        }
+        return root;
+    }
+
+    private static String parentName(Observation.Context context) {
+        ObservationView parent = context.getParentObservation();
+        return parent == null ? null : parent.getContextView().getName();
+    }
+
+    private static Map<String, String> attributes(StorageObservation.Context context) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (KeyValue keyValue : context.getHighCardinalityKeyValues()) {
+            attributes.put(keyValue.getKey(), keyValue.getValue());
+        }
+        attributes.put("mongo.commands", Long.toString(context.mongoCommands()));
+        attributes.put("mongo.ms", "%.1f".formatted(context.mongoNanos() / 1e6));
+        if (context.getError() != null) {
+            attributes.put("error", context.getError().getClass().getSimpleName());
+        }
+        return attributes;
+    }
+
+    private static String format(List<TransferTraceDto.Span> spans) {
+        StringBuilder text = new StringBuilder();
+        for (TransferTraceDto.Span span : spans) {
+            text.append("%n  +%dms %s %dms %s".formatted(span.startMillis(), span.name(), span.durationMillis(),
+                    span.attributes()));
+        }
+        return text.toString();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private record RecordedSpan(String name, String parent, long start, long end, Map<String, String> attributes) {
+    }
+}
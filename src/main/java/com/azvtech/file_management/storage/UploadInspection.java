@@ -0,0 +1,117 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.exception.StorageException;
+import org.apache.commons.codec.binary.Hex;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Inspection state of one upload, fed with its bytes as they pass on their way to
+ * storage: SHA-256 checksum, byte count and the first {@code headSize} bytes. The head
+ * inspector runs once the head is full or the content ends, the size inspector after
+ * every update. Both reject the upload by throwing a {@link StorageException}.
+ * Shared by the blocking {@link UploadStream} and the reactive upload path.
+ */
+final class UploadInspection {
+
+    private final MessageDigest digest;
+    private final byte[] head;
+    private final Consumer<byte[]> headInspector;
+    private final LongConsumer sizeInspector;
+    private int headLength;
+    private boolean headInspected;
+    private long bytesRead;
+    private long digestNanos;
+
+    UploadInspection(int headSize, Consumer<byte[]> headInspector, LongConsumer sizeInspector) {
+        this.digest = newDigest();
+        this.head = new byte[headSize];
+        this.headInspector = headInspector;
+        this.sizeInspector = sizeInspector;
+    }
+
+    void update(byte[] b, int off, int n) {
+        long start = System.nanoTime();
+        digest.update(b, off, n);
+        digestNanos += System.nanoTime() - start;
+        bytesRead += n;
+        sizeInspector.accept(bytesRead);
+
+        if (!headInspected) {
+            int copy = Math.min(n, head.length - headLength);
+            System.arraycopy(b, off, head, headLength, copy);
+            headLength += copy;
+            if (headLength == head.length) {
+                inspectHead();
+            }
+        }
+    }
+
+    /**
+     * Consumes the remaining bytes of {@code buffer}; pass a duplicate to keep its position.
+     */
+    void update(ByteBuffer buffer) {
+        int n = buffer.remaining();
+        if (!headInspected) {
+            int copy = Math.min(n, head.length - headLength);
+            buffer.duplicate().get(head, headLength, copy);
+            headLength += copy;
+        }
+        long start = System.nanoTime();
+        digest.update(buffer);
+        digestNanos += System.nanoTime() - start;
+        bytesRead += n;
+        sizeInspector.accept(bytesRead);
+
+        if (!headInspected && headLength == head.length) {
+            inspectHead();
+        }
+    }
+
+    /**
+     * Marks the end of the content, inspecting the head if it was never filled.
+     */
+    void complete() {
+        inspectHead();
+    }
+
+    /**
+     * Hex encoded SHA-256 of every byte seen so far. Only meaningful once the content
+     * is complete.
+     */
+    String checksum() {
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Time spent hashing so far, spread over the reads of the upload.
+     */
+    long digestNanos() {
+        return digestNanos;
+    }
+
+    private void inspectHead() {
+        if (headInspected) {
+            return;
+        }
+        headInspected = true;
+        headInspector.accept(Arrays.copyOf(head, headLength));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new StorageException("Failed to calculate checksum", e);
+        }
+    }
+}
@@ -0,0 +1,501 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.StorageProperties;
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.exception.StorageFileNotFoundException;
+import com.azvtech.file_management.model.ContentBlob;
+import com.azvtech.file_management.model.UploadSession;
+import com.azvtech.file_management.validation.FileValidator;
+import com.mongodb.MongoException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Resumable uploads. A session reserves a GridFS object; each numbered part is written
+ * as the chunks at the part's offset, so parts can arrive in any order and in parallel,
+ * and a dropped part is sent again on its own. Every attempt at a part writes under a
+ * GridFS object of its own and is kept only if it still holds the part's lease when it
+ * finishes, so an attempt that outlived its lease never overwrites the one that took
+ * over. Committing moves the kept chunks under the reserved object, inserts the files
+ * document and stores the file like any other upload.
+ * <p>
+ * SHA-256 cannot combine digests of separate parts, so the checksum is advanced in part
+ * order: a part that arrives when every earlier part has been hashed on this node is
+ * hashed while it is written. On commit only the parts past the first gap, or all of
+ * them if the parts went to other nodes, are read back from GridFS to finish it.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UploadSessionService {
+
+    private final MongoOperations mongoOperations;
+    private final StorageService storageService;
+    private final GridFsService gridFsService;
+    private final GridFsChunkPolicy chunkPolicy;
+    private final FileValidator fileValidator;
+    private final StorageMetrics metrics;
+    private final boolean allowDuplicateFiles;
+    private final long partSize;
+    private final Duration partLease;
+    private final Duration expiry;
+    private final Duration sweepInterval;
+    private final Clock clock;
+
+    /**
+     * Checksum state of the sessions whose parts were hashed on this node.
+     */
+    private final Map<String, SessionDigest> digests = new ConcurrentHashMap<>();
+    private volatile Thread sweeper;
+
+    public UploadSessionService(StorageProperties storageProperties, MongoOperations mongoOperations,
+                                StorageService storageService, GridFsService gridFsService,
+                                GridFsChunkPolicy chunkPolicy, FileValidator fileValidator, StorageMetrics metrics,
+                                Clock clock) {
+        StorageProperties.UploadSessions properties = storageProperties.uploadSessions();
+        this.mongoOperations = mongoOperations;
+        this.storageService = storageService;
+        this.gridFsService = gridFsService;
+        this.chunkPolicy = chunkPolicy;
+        this.fileValidator = fileValidator;
+        this.metrics = metrics;
+        this.allowDuplicateFiles = storageProperties.allowDuplicateFiles();
+        this.partSize = properties.partSize().toBytes();
+        this.partLease = properties.partLease();
+        this.expiry = properties.expiry();
+        this.sweepInterval = properties.sweepInterval();
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            mongoOperations.indexOps(UploadSession.class)
+                    .createIndex(new Index().on("expiresAt", Sort.Direction.ASC));
+        } catch (DataAccessException e) {
+            log.warn("Could not create upload session indexes: {}", e.getMessage());
+        }
+        sweeper = Thread.ofVirtual().name("upload-session-sweeper").start(this::sweep);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = sweeper;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Opens a session for a file of {@code size} bytes, checked against the same rules
+     * as a direct upload.
+     */
+    public UploadSession create(String originalName, String contentType, long size) {
+        if (size <= 0) {
+            throw new StorageException.InvalidFileException("The file size must be given to start a resumable upload");
+        }
+        if (!allowDuplicateFiles && storageService.existsByOriginalName(originalName)) {
+            metrics.rejected("duplicate");
+            throw new StorageException.DuplicateFileException(originalName);
+        }
+        metrics.time(StorageMetrics.Phase.VALIDATE, () -> fileValidator.validate(originalName, contentType, size));
+
+        int chunkSize = chunkPolicy.chunkSize(contentType, size);
+        Instant now = Instant.now(clock);
+        UploadSession session = new UploadSession(new ObjectId().toString(), originalName, contentType, size,
+                chunkSize, Math.max(1, partSize / chunkSize) * chunkSize, new ObjectId().toString(), Set.of(),
+                Map.of(), Map.of(), Set.of(), false, now.plus(expiry), now);
+        return mongoOperations.insert(session);
+    }
+
+    public UploadSession find(String sessionId) {
+        UploadSession session = mongoOperations.findById(sessionId, UploadSession.class);
+        if (session == null) {
+            throw new StorageFileNotFoundException("Upload session not found: " + sessionId);
+        }
+        return session;
+    }
+
+    public List<Integer> missingParts(UploadSession session) {
+        return IntStream.range(0, session.partCount())
+                .filter(part -> !session.receivedParts().contains(part))
+                .boxed()
+                .toList();
+    }
+
+    /**
+     * Writes part {@code part} of the session. A part is recorded as received only once
+     * all of its bytes are stored, and only if its lease has not run out meanwhile;
+     * until then it may be sent again.
+     */
+    public UploadSession uploadPart(String sessionId, int part, InputStream content) {
+        UploadSession session = find(sessionId);
+        if (part < 0 || part >= session.partCount()) {
+            throw new StorageException.InvalidFileException(
+                    "Part %d is out of range, the upload has %d parts".formatted(part, session.partCount()));
+        }
+        String attemptId = new ObjectId().toString();
+        Instant lease = claimPart(session, part, attemptId);
+
+        int firstChunk = part * session.chunksPerPart();
+        SessionDigest digest = digests.computeIfAbsent(sessionId, id -> new SessionDigest());
+        MessageDigest continued = digest.continuation(part);
+        UploadSession updated;
+        try {
+            long expected = session.partLength(part);
+            long written;
+            try (InputStream body = continued == null ? content : new DigestInputStream(content, continued)) {
+                InputStream partContent = part == 0 ? validatedHead(session, body, expected) : body;
+                written = gridFsService.writeChunks(attemptId, firstChunk, session.chunksPerPart(),
+                        session.chunkSize(), partContent);
+            } catch (IOException e) {
+                throw new StorageException("Failed to store part " + part, e);
+            }
+            if (written != expected) {
+                gridFsService.deleteUnfinished(attemptId);
+                throw new StorageException.InvalidFileException(
+                        "Part %d has %d bytes, expected %d".formatted(part, written, expected));
+            }
+
+            updated = mongoOperations.findAndModify(leased(sessionId, part, lease),
+                    new Update().addToSet("receivedParts", part)
+                            .set(partFileKey(part), attemptId)
+                            .unset(leaseKey(part))
+                            .set("expiresAt", Instant.now(clock).plus(expiry)),
+                    FindAndModifyOptions.options().returnNew(true), UploadSession.class);
+        } catch (RuntimeException e) {
+            mongoOperations.updateFirst(leased(sessionId, part, lease), new Update().unset(leaseKey(part)),
+                    UploadSession.class);
+            throw e;
+        }
+
+        if (updated == null) {
+            // The lease ran out or the session ended; whoever holds the part now writes elsewhere
+            gridFsService.deleteUnfinished(attemptId);
+            if (!mongoOperations.exists(query(where("_id").is(sessionId)), UploadSession.class)) {
+                throw new StorageFileNotFoundException("Upload session not found: " + sessionId);
+            }
+            throw new StorageException.ConflictException(
+                    "Part %d took longer than %s and was taken over by another upload".formatted(part, partLease));
+        }
+        if (continued != null) {
+            digest.advance(part, continued);
+        }
+        return updated;
+    }
+
+    /**
+     * Finishes the upload once every part is received, storing it as
+     * {@code originalName}. Once the content is complete the session ends, whether or not
+     * the file is accepted.
+     *
+     * @return the session as committed
+     */
+    public UploadSession commit(String sessionId) {
+        UploadSession session = find(sessionId);
+        List<Integer> missing = missingParts(session);
+        if (!missing.isEmpty()) {
+            throw new StorageException.InvalidFileException(
+                    "%d of %d parts have not been received, starting with part %d"
+                            .formatted(missing.size(), session.partCount(), missing.getFirst()));
+        }
+        UploadSession committing = mongoOperations.findAndModify(
+                query(where("_id").is(sessionId).and("committing").is(false)),
+                new Update().set("committing", true).set("expiresAt", Instant.now(clock).plus(expiry)),
+                FindAndModifyOptions.options().returnNew(true), UploadSession.class);
+        if (committing == null) {
+            throw new StorageException.ConflictException("Upload is already being committed");
+        }
+
+        String checksum;
+        try {
+            // Idempotent, so a commit that failed part way through is finished by its retry
+            committing.partFiles().values()
+                    .forEach(attemptId -> gridFsService.moveChunks(attemptId, committing.gridFsId()));
+            checksum = checksum(committing);
+            gridFsService.finishFile(committing.gridFsId(), committing.size(), committing.chunkSize(),
+                    committing.originalName(), committing.contentType());
+        } catch (RuntimeException e) {
+            // Nothing was stored; the commit can be retried
+            mongoOperations.updateFirst(query(where("_id").is(sessionId)), new Update().set("committing", false),
+                    UploadSession.class);
+            throw e;
+        }
+        try {
+            // Stores the content, or deletes it if the file is rejected
+            storageService.storeWritten(committing.originalName(), committing.contentType(), committing.gridFsId(),
+                    committing.size(), checksum);
+        } finally {
+            end(committing);
+        }
+        log.info("Upload session {} committed as {}", sessionId, committing.originalName());
+        return committing;
+    }
+
+    /**
+     * Ends a session that is not being committed, deleting the parts received so far.
+     */
+    public void abort(String sessionId) {
+        UploadSession session = mongoOperations.findAndRemove(
+                query(where("_id").is(sessionId).and("committing").is(false)), UploadSession.class);
+        if (session == null) {
+            find(sessionId);
+            throw new StorageException.ConflictException("Upload is being committed");
+        }
+        deleteParts(session);
+        digests.remove(sessionId);
+        log.debug("Upload session {} of {} aborted", sessionId, session.originalName());
+    }
+
+    /**
+     * Removes sessions past their expiry and the chunks written for them.
+     */
+    void sweepExpired() {
+        Instant now = Instant.now(clock);
+        int removed = 0;
+        for (UploadSession expired : mongoOperations.find(query(where("expiresAt").lt(now)), UploadSession.class)) {
+            UploadSession session = mongoOperations.findAndRemove(
+                    query(where("_id").is(expired.id()).and("expiresAt").lt(now)), UploadSession.class);
+            if (session != null) {
+                // A commit that died after storing its file leaves the content in use
+                if (!session.committing() || !contentStored(session)) {
+                    gridFsService.deleteUnfinished(session.gridFsId());
+                }
+                deleteAttempts(session, session.partAttempts());
+                digests.remove(session.id());
+                removed++;
+            }
+        }
+        if (!digests.isEmpty()) {
+            // Sessions ended on other nodes
+            Set<String> live = mongoOperations.find(query(where("_id").in(digests.keySet())), UploadSession.class)
+                    .stream()
+                    .map(UploadSession::id)
+                    .collect(Collectors.toSet());
+            digests.keySet().removeIf(id -> !live.contains(id));
+        }
+        if (removed > 0) {
+            log.info("Removed {} expired upload sessions", removed);
+        }
+    }
+
+    private void sweep() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(sweepInterval);
+                sweepExpired();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Failed to remove expired upload sessions: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Leases {@code part} to the attempt {@code attemptId}, so that only one upload of a
+     * part at a time can have it recorded. A lease left by a failed node runs out after
+     * {@code partLease}; the attempt is listed on the session so that its chunks are
+     * removed with it even if it never finishes.
+     */
+    private Instant claimPart(UploadSession session, int part, String attemptId) {
+        Instant now = Instant.now(clock).truncatedTo(ChronoUnit.MILLIS);
+        Instant lease = now.plus(partLease);
+        Query claimable = query(where("_id").is(session.id())
+                .and("committing").is(false)
+                .and("receivedParts").ne(part)
+                .orOperator(where(leaseKey(part)).exists(false), where(leaseKey(part)).lt(now)));
+        Update claim = new Update().set(leaseKey(part), lease).addToSet("partAttempts", attemptId);
+        if (mongoOperations.updateFirst(claimable, claim, UploadSession.class).getModifiedCount() > 0) {
+            return lease;
+        }
+
+        UploadSession current = find(session.id());
+        if (current.committing()) {
+            throw new StorageException.ConflictException("Upload is being committed");
+        }
+        if (current.receivedParts().contains(part)) {
+            throw new StorageException.ConflictException("Part %d was already received".formatted(part));
+        }
+        throw new StorageException.ConflictException("Part %d is being uploaded".formatted(part));
+    }
+
+    /**
+     * Checks the head of the first part against the declared type before it is written.
+     */
+    private InputStream validatedHead(UploadSession session, InputStream body, long length) throws IOException {
+        byte[] head = body.readNBytes((int) Math.min(FileValidator.CONTENT_HEAD_SIZE, length));
+        fileValidator.validateContent(session.contentType(), head);
+        return new SequenceInputStream(new ByteArrayInputStream(head), body);
+    }
+
+    /**
+     * Completes the checksum of a fully received upload, reading back from GridFS the
+     * parts not hashed as they arrived.
+     */
+    private String checksum(UploadSession session) {
+        SessionDigest state = digests.get(session.id());
+        SessionDigest.Snapshot snapshot = state != null ? state.snapshot() : new SessionDigest.Snapshot(sha256(), 0);
+        MessageDigest digest = snapshot.digest();
+        long offset = snapshot.hashedParts() * session.partSize();
+        if (offset < session.size()) {
+            try (InputStream rest = gridFsService.openChunks(session.gridFsId(), session.size(), session.chunkSize());
+                 OutputStream sink = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                rest.skipNBytes(offset);
+                rest.transferTo(sink);
+            } catch (IOException e) {
+                throw new StorageException("Failed to read uploaded parts", e);
+            }
+            log.debug("Read back {} bytes of upload session {} to complete its checksum",
+                    session.size() - offset, session.id());
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private boolean contentStored(UploadSession session) {
+        return mongoOperations.exists(query(where("gridFsId").is(session.gridFsId())), ContentBlob.class);
+    }
+
+    private void end(UploadSession session) {
+        mongoOperations.remove(query(where("_id").is(session.id())), UploadSession.class);
+        digests.remove(session.id());
+        // Attempts that never finished; the kept ones were moved under the file
+        Set<String> abandoned = new HashSet<>(session.partAttempts());
+        abandoned.removeAll(session.partFiles().values());
+        deleteAttempts(session, abandoned);
+    }
+
+    private void deleteParts(UploadSession session) {
+        gridFsService.deleteUnfinished(session.gridFsId());
+        deleteAttempts(session, session.partAttempts());
+    }
+
+    private void deleteAttempts(UploadSession session, Set<String> attemptIds) {
+        for (String attemptId : attemptIds) {
+            try {
+                gridFsService.deleteUnfinished(attemptId);
+            } catch (DataAccessException | MongoException e) {
+                // Chunks without a files document are never served
+                log.warn("Failed to delete part chunks {} of upload session {}: {}", attemptId, session.id(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    private static Query leased(String sessionId, int part, Instant lease) {
+        return query(where("_id").is(sessionId).and(leaseKey(part)).is(lease));
+    }
+
+    private static String leaseKey(int part) {
+        return "partLeases." + part;
+    }
+
+    private static String partFileKey(int part) {
+        return "partFiles." + part;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new StorageException("Failed to calculate checksum", e);
+        }
+    }
+
+    /**
+     * Running SHA-256 over the parts of one session hashed so far, always a prefix of the
+     * file: part {@code n} is only hashed after parts {@code 0} to {@code n - 1}.
+     */
+    private static final class SessionDigest {
+
+        record Snapshot(MessageDigest digest, int hashedParts) {
+        }
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private MessageDigest digest = sha256();
+        private int hashedParts;
+
+        /**
+         * A copy of the digest to continue with {@code part}, or {@code null} if an
+         * earlier part has not been hashed yet.
+         */
+        MessageDigest continuation(int part) {
+            lock.lock();
+            try {
+                return hashedParts == part ? copy(digest) : null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes the digest continued over all of {@code part}.
+         */
+        void advance(int part, MessageDigest continued) {
+            lock.lock();
+            try {
+                if (hashedParts == part) {
+                    digest = continued;
+                    hashedParts++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Snapshot snapshot() {
+            lock.lock();
+            try {
+                return new Snapshot(copy(digest), hashedParts);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static MessageDigest copy(MessageDigest digest) {
+            try {
+                return (MessageDigest) digest.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new StorageException("Failed to calculate checksum", e);
+            }
+        }
+    }
+}
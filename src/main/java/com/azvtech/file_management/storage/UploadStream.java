@@ -0,0 +1,133 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.exception.StorageException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Single-pass view over an upload. While the bytes flow to GridFS it computes the
+ * SHA-256 checksum, counts the bytes and hands the first {@code headSize} bytes to an
+ * inspector as soon as they have passed, so no second read of the upload is needed.
+ * The running byte count is reported to a size inspector so uploads of unknown length
+ * are cut off as soon as they exceed the limit.
+ */
+final class UploadStream extends FilterInputStream {
+
+    private final UploadInspection inspection;
+    /**
+     * Holds the byte of a single-byte read while it is inspected.
+     */
+    private final byte[] single = new byte[1];
+
+    UploadStream(InputStream in, int headSize, Consumer<byte[]> headInspector) {
+        this(in, headSize, headInspector, size -> {
+        });
+    }
+
+    UploadStream(InputStream in, int headSize, Consumer<byte[]> headInspector, LongConsumer sizeInspector) {
+        super(in);
+        this.inspection = new UploadInspection(headSize, headInspector, sizeInspector);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            complete();
+        } else {
+            single[0] = (byte) b;
+            update(single, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n == -1) {
+            complete();
+        } else {
+            update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes must still be digested, so read them instead of delegating
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Hex encoded SHA-256 of every byte read so far. Only meaningful once the stream
+     * has been consumed to the end.
+     */
+    String checksum() {
+        return inspection.checksum();
+    }
+
+    long bytesRead() {
+        return inspection.bytesRead();
+    }
+
+    long digestNanos() {
+        return inspection.digestNanos();
+    }
+
+    private void update(byte[] b, int off, int n) throws IOException {
+        try {
+            inspection.update(b, off, n);
+        } catch (StorageException e) {
+            // Surface as an IOException so the GridFS writer aborts and drops written chunks
+            throw new UploadRejectedException(e);
+        }
+    }
+
+    private void complete() throws IOException {
+        try {
+            inspection.complete();
+        } catch (StorageException e) {
+            throw new UploadRejectedException(e);
+        }
+    }
+
+    static final class UploadRejectedException extends IOException {
+        private final StorageException reason;
+
+        UploadRejectedException(StorageException reason) {
+            super(reason.getMessage(), reason);
+            this.reason = reason;
+        }
+
+        StorageException reason() {
+            return reason;
+        }
+    }
+}
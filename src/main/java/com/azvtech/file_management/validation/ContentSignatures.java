@@ -0,0 +1,87 @@
+package com.azvtech.file_management.validation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Magic-number lookup for the content types the service accepts, checked against the
+ * first bytes of an upload. Types without a known signature are not checked.
+ */
+final class ContentSignatures {
+
+    /**
+     * PDF readers accept the header anywhere in the first 1024 bytes.
+     */
+    private static final int PDF_HEADER_WINDOW = 1024;
+
+    private static final byte[] PDF = ascii("%PDF-");
+
+    private static final Map<String, List<byte[]>> SIGNATURES = Map.of(
+            "image/jpeg", List.of(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+            "image/png", List.of(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}),
+            "image/gif", List.of(ascii("GIF87a"), ascii("GIF89a"))
+    );
+
+    private ContentSignatures() {
+    }
+
+    /**
+     * Whether {@code head} is consistent with {@code contentType}.
+     */
+    static boolean matches(String contentType, byte[] head) {
+        if ("application/pdf".equals(contentType)) {
+            return indexOf(head, PDF, PDF_HEADER_WINDOW) >= 0;
+        }
+        if ("text/plain".equals(contentType)) {
+            // Binary content has NUL bytes early on; text in any ASCII-compatible charset does not
+            return indexOf(head, new byte[]{0}, head.length) < 0;
+        }
+        List<byte[]> signatures = SIGNATURES.get(contentType);
+        return signatures == null || signatures.stream().anyMatch(signature -> startsWith(head, signature));
+    }
+
+    /**
+     * The content type whose signature {@code head} carries, if any.
+     */
+    static Optional<String> detect(byte[] head) {
+        if (indexOf(head, PDF, PDF_HEADER_WINDOW) >= 0) {
+            return Optional.of("application/pdf");
+        }
+        return SIGNATURES.entrySet().stream()
+                .filter(entry -> entry.getValue().stream().anyMatch(signature -> startsWith(head, signature)))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+    private static boolean startsWith(byte[] head, byte[] signature) {
+        if (head.length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (head[i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] head, byte[] pattern, int window) {
+        int last = Math.min(head.length, window) - pattern.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (head[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
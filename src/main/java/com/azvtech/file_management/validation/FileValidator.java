@@ -1,85 +1,134 @@
 package com.azvtech.file_management.validation;
 import com.azvtech.file_management.exception.StorageException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Set;
 
 public final class FileValidator {
 
+    /**
+     * Number of leading bytes captured from the upload stream for content checks.
+     */
+    public static final int CONTENT_HEAD_SIZE = 8 * 1024;
+
+    /**
+     * Counter of refused uploads, tagged with the {@code reason}.
+     */
+    public static final String REJECTED_METRIC = "storage.uploads.rejected";
+
     private final Set<String> allowedMimeTypes;
     private final Set<String> allowedExtensions;
     private final long maxFileSize;
+    private final MeterRegistry meterRegistry;
 
     public FileValidator(Set<String> allowedMimeTypes, Set<String> allowedExtensions, long maxFileSize) {
+        this(allowedMimeTypes, allowedExtensions, maxFileSize, Metrics.globalRegistry);
+    }
+
+    public FileValidator(Set<String> allowedMimeTypes, Set<String> allowedExtensions, long maxFileSize,
+                         MeterRegistry meterRegistry) {
         this.allowedMimeTypes = Set.copyOf(allowedMimeTypes);
         this.allowedExtensions = Set.copyOf(allowedExtensions);
         this.maxFileSize = maxFileSize;
+        this.meterRegistry = meterRegistry;
     }
 
     public void validate(MultipartFile file) {
         if (file == null) {
-            throw new StorageException.InvalidFileException("File cannot be null");
+            throw rejected("empty", new StorageException.InvalidFileException("File cannot be null"));
         }
 
-        validateEmptyFile(file);
-        validateFileSize(file);
-        validateContentType(file);
-        validateFileExtension(file);
-        validateMimeTypeConsistency(file);
+        validate(file.getOriginalFilename(), file.getContentType(), file.getSize());
     }
 
-    private void validateEmptyFile(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new StorageException.InvalidFileException("Empty file not allowed");
+    /**
+     * Validates an upload from its declared attributes. A negative {@code size} means the
+     * length is not known up front, as with streamed request bodies; the size is then
+     * enforced while streaming through {@link #validateSize(long)}.
+     */
+    public void validate(String originalFilename, String contentType, long size) {
+        if (size >= 0) {
+            validateEmptyFile(size);
+            validateSize(size);
         }
+        validateContentType(contentType);
+        validateFileExtension(originalFilename);
+        validateMimeTypeConsistency(originalFilename, contentType);
     }
 
+    public void validateSize(long size) {
+        if (size > maxFileSize) {
+            throw rejected("too-large", new StorageException(
+                    "File size exceeds %dMB limit".formatted(maxFileSize / (1024 * 1024))));
+        }
+    }
 
-    private void validateFileSize(MultipartFile file) {
-        if (file.getSize() > maxFileSize) {
-            throw new StorageException(
-                    "File size exceeds %dMB limit".formatted(maxFileSize / (1024 * 1024)));
+    /**
+     * Checks the first bytes of the upload as they are streamed to storage, before the
+     * rest of it is written. {@code head} holds up to {@link #CONTENT_HEAD_SIZE} bytes,
+     * fewer for smaller files, and must carry the magic number of the declared
+     * {@code contentType}.
+     */
+    public void validateContent(String contentType, byte[] head) {
+        if (head.length == 0) {
+            throw rejected("empty", new StorageException.InvalidFileException("Empty file not allowed"));
+        }
+        if (!ContentSignatures.matches(contentType, head)) {
+            String detected = ContentSignatures.detect(head).map(type -> " (looks like '%s')".formatted(type)).orElse("");
+            throw rejected("content-mismatch", new StorageException.InvalidFileException(
+                    "File content does not match the declared MIME type '%s'%s".formatted(contentType, detected)));
         }
     }
 
-    private void validateContentType(MultipartFile file) {
-        String contentType = file.getContentType();
+    private void validateEmptyFile(long size) {
+        if (size == 0) {
+            throw rejected("empty", new StorageException.InvalidFileException("Empty file not allowed"));
+        }
+    }
+
+    private void validateContentType(String contentType) {
         if (contentType == null || !allowedMimeTypes.contains(contentType)) {
-            throw new StorageException("MIME type '%s' is not supported".formatted(contentType));
+            throw rejected("unsupported-type",
+                    new StorageException("MIME type '%s' is not supported".formatted(contentType)));
         }
     }
 
-    private void validateFileExtension(MultipartFile file) {
-        String originalFilename = file.getOriginalFilename();
+    private void validateFileExtension(String originalFilename) {
         if (originalFilename == null || originalFilename.lastIndexOf(".") == -1) {
-            throw new StorageException("Invalid file name");
+            throw rejected("invalid-name", new StorageException("Invalid file name"));
         }
 
         String fileExtension = originalFilename.substring(
                 originalFilename.lastIndexOf(".") + 1).toLowerCase();
 
         if (!allowedExtensions.contains(fileExtension)) {
-            throw new StorageException("Extension '.%s' is not allowed".formatted(fileExtension));
+            throw rejected("unsupported-extension",
+                    new StorageException("Extension '.%s' is not allowed".formatted(fileExtension)));
         }
     }
 
-    private void validateMimeTypeConsistency(MultipartFile file) {
-        String contentType = file.getContentType();
-        String originalFilename = file.getOriginalFilename();
-
+    private void validateMimeTypeConsistency(String originalFilename, String contentType) {
         if (originalFilename == null) {
-            throw new StorageException("Invalid file name");
+            throw rejected("invalid-name", new StorageException("Invalid file name"));
         }
 
         String fileExtension = originalFilename.substring(
                 originalFilename.lastIndexOf(".") + 1).toLowerCase();
 
         if (!isMimeTypeMatchesExtension(contentType, fileExtension)) {
-            throw new StorageException("File extension does not match the declared MIME type");
+            throw rejected("extension-mismatch",
+                    new StorageException("File extension does not match the declared MIME type"));
         }
     }
 
+    private StorageException rejected(String reason, StorageException exception) {
+        meterRegistry.counter(REJECTED_METRIC, "reason", reason).increment();
+        return exception;
+    }
+
     private boolean isMimeTypeMatchesExtension(String mimeType, String extension) {
         return switch (extension) {
             case "pdf" -> "application/pdf".equals(mimeType);
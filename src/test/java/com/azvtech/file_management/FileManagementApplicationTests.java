@@ -3,7 +3,10 @@ package com.azvtech.file_management;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"storage.metadata-indexes.provision=false",
+		"spring.data.mongodb.uri=mongodb://localhost:27017/hive-move-file-management?serverSelectionTimeoutMS=2000"
+})
 class FileManagementApplicationTests {
 
 	@Test
@@ -0,0 +1,21 @@
+package com.azvtech.file_management;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.MongoDBContainer;
+
+/**
+ * MongoDB for tests that need a real server: a single node replica set in a throwaway
+ * container, so transactions work as they do in production. Test classes importing it
+ * are annotated {@code @Testcontainers(disabledWithoutDocker = true)}.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class MongoContainerConfiguration {
+
+    @Bean
+    @ServiceConnection
+    MongoDBContainer mongoDbContainer() {
+        return new MongoDBContainer("mongo:7.0");
+    }
+}
@@ -0,0 +1,36 @@
+package com.azvtech.file_management.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentTypeMatcherTests {
+
+    private final Map<String, String> byType = Map.of("image/*", "wildcard", "image/png", "exact");
+
+    @Test
+    void prefersTheExactTypeOverItsWildcard() {
+        assertThat(ContentTypeMatcher.lookup(byType, "image/png")).isEqualTo("exact");
+        assertThat(ContentTypeMatcher.lookup(byType, "image/jpeg")).isEqualTo("wildcard");
+    }
+
+    @Test
+    void findsNothingForOtherOrMissingTypes() {
+        assertThat(ContentTypeMatcher.lookup(byType, "application/pdf")).isNull();
+        assertThat(ContentTypeMatcher.lookup(byType, "image")).isNull();
+        assertThat(ContentTypeMatcher.lookup(byType, null)).isNull();
+    }
+
+    @Test
+    void matchesSetsOfTypesTheSameWay() {
+        Set<String> types = Set.of("text/*", "application/json");
+
+        assertThat(ContentTypeMatcher.matches(types, "text/plain")).isTrue();
+        assertThat(ContentTypeMatcher.matches(types, "application/json")).isTrue();
+        assertThat(ContentTypeMatcher.matches(types, "application/pdf")).isFalse();
+        assertThat(ContentTypeMatcher.matches(types, null)).isFalse();
+    }
+}
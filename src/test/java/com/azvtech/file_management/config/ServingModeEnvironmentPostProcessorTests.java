@@ -0,0 +1,34 @@
+package com.azvtech.file_management.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServingModeEnvironmentPostProcessorTests {
+
+    private final ServingModeEnvironmentPostProcessor postProcessor = new ServingModeEnvironmentPostProcessor();
+
+    @Test
+    void excludesReactiveMongoInServletMode() {
+        var environment = new MockEnvironment()
+                .withProperty("spring.main.web-application-type", "servlet")
+                .withProperty(ServingModeEnvironmentPostProcessor.EXCLUDE_PROPERTY, "com.example.OtherAutoConfiguration");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getProperty(ServingModeEnvironmentPostProcessor.EXCLUDE_PROPERTY).split(","))
+                .contains("com.example.OtherAutoConfiguration")
+                .containsAll(ServingModeEnvironmentPostProcessor.REACTIVE_MONGO_AUTO_CONFIGURATIONS);
+    }
+
+    @Test
+    void keepsReactiveMongoInReactiveMode() {
+        var environment = new MockEnvironment().withProperty("spring.main.web-application-type", "reactive");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getProperty(ServingModeEnvironmentPostProcessor.EXCLUDE_PROPERTY)).isNull();
+    }
+}
@@ -0,0 +1,44 @@
+package com.azvtech.file_management.config;
+
+import com.azvtech.file_management.storage.StorageService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Files for tests that store content: PDFs of random bytes, which pass content
+ * validation and do not compress, under names no other test uses.
+ */
+public final class TestFiles {
+
+    public static final String PDF = "application/pdf";
+
+    private static final byte[] PDF_HEADER = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+
+    private TestFiles() {
+    }
+
+    public static byte[] pdf(int size) {
+        byte[] content = new byte[size];
+        new Random().nextBytes(content);
+        System.arraycopy(PDF_HEADER, 0, content, 0, Math.min(PDF_HEADER.length, size));
+        return content;
+    }
+
+    public static String pdfName() {
+        return UUID.randomUUID() + ".pdf";
+    }
+
+    /**
+     * Stores {@code content} as a PDF under a fresh name.
+     *
+     * @return the name it was stored under
+     */
+    public static String storePdf(StorageService storageService, byte[] content) {
+        String originalName = pdfName();
+        storageService.store(originalName, PDF, content.length, new ByteArrayInputStream(content));
+        return originalName;
+    }
+}
@@ -0,0 +1,25 @@
+package com.azvtech.file_management.config;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+/**
+ * Binds {@link StorageProperties} the way the application does, from {@code storage.*}
+ * properties, with defaults for everything not given.
+ */
+public final class TestStorageProperties {
+
+    private TestStorageProperties() {
+    }
+
+    public static StorageProperties of(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bindOrCreate("storage", StorageProperties.class);
+    }
+
+    public static StorageProperties defaults() {
+        return of(Map.of());
+    }
+}
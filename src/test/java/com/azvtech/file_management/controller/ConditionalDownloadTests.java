@@ -0,0 +1,94 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.MongoContainerConfiguration;
+import com.azvtech.file_management.config.TestFiles;
+import com.azvtech.file_management.storage.GridFsService;
+import com.azvtech.file_management.storage.StorageService;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "storage.compression.enabled=false")
+@AutoConfigureMockMvc
+@Import(MongoContainerConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ConditionalDownloadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StorageService storageService;
+
+    @MockitoSpyBean
+    private GridFsService gridFsService;
+
+    private byte[] content;
+    private String originalName;
+    private String eTag;
+
+    @BeforeEach
+    void storeFile() {
+        content = TestFiles.pdf(8192);
+        originalName = TestFiles.storePdf(storageService, content);
+        eTag = "\"" + DigestUtils.sha256Hex(content) + "\"";
+    }
+
+    @Test
+    void setsValidatorsOnTheDownload() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void answersAMatchingETagWithoutReadingGridFs() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(gridFsService, never()).getResource(anyString());
+    }
+
+    @Test
+    void answersAnUnchangedDateWithoutReadingGridFs() throws Exception {
+        String later = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(1));
+
+        mockMvc.perform(get("/api/v1/file/{name}", originalName).header(HttpHeaders.IF_MODIFIED_SINCE, later))
+                .andExpect(status().isNotModified());
+
+        verify(gridFsService, never()).getResource(anyString());
+    }
+
+    @Test
+    void sendsTheFileWhenTheETagDiffers() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + DigestUtils.sha256Hex("other") + "\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+}
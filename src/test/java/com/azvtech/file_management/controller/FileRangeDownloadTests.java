@@ -0,0 +1,118 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.MongoContainerConfiguration;
+import com.azvtech.file_management.config.TestFiles;
+import com.azvtech.file_management.storage.StorageService;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Range requests served from GridFS chunks, with 1MB chunks so ranges can cross a chunk
+ * boundary.
+ */
+@SpringBootTest(properties = {
+        "storage.compression.enabled=false",
+        "storage.grid-fs.chunk-size[application/pdf]=1MB"
+})
+@AutoConfigureMockMvc
+@Import(MongoContainerConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class FileRangeDownloadTests {
+
+    private static final int SIZE = 3 * 1024 * 1024 / 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StorageService storageService;
+
+    private byte[] content;
+    private String originalName;
+    private String eTag;
+
+    @BeforeEach
+    void storeFile() {
+        content = TestFiles.pdf(SIZE);
+        originalName = TestFiles.storePdf(storageService, content);
+        eTag = "\"" + DigestUtils.sha256Hex(content) + "\"";
+    }
+
+    @Test
+    void servesARangeAcrossAChunkBoundary() throws Exception {
+        int from = 1024 * 1024 - 100;
+        int to = 1024 * 1024 + 99;
+
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.RANGE, "bytes=%d-%d".formatted(from, to)))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes %d-%d/%d".formatted(from, to, SIZE)))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, from, to + 1)));
+    }
+
+    @Test
+    void servesASuffixRange() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.RANGE, "bytes=-500"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(content, SIZE - 500, SIZE)));
+    }
+
+    @Test
+    void servesSeveralRangesAsMultipart() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.RANGE, "bytes=0-9,1500000-1500009"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, startsWith("multipart/byteranges")));
+    }
+
+    @Test
+    void servesTheRangeWhenIfRangeMatches() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, eTag))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 0, 100)));
+    }
+
+    @Test
+    void servesTheWholeFileWhenIfRangeIsStale() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, "\"" + DigestUtils.sha256Hex("other") + "\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void servesTheWholeFileWhenIfRangeIsWeak() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, "W/" + eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void rejectsAnUnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/api/v1/file/{name}", originalName)
+                        .header(HttpHeaders.RANGE, "bytes=%d-".formatted(SIZE)))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+}
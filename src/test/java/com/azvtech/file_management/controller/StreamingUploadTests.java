@@ -0,0 +1,76 @@
+package com.azvtech.file_management.controller;
+
+import com.azvtech.file_management.MongoContainerConfiguration;
+import com.azvtech.file_management.config.TestFiles;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.storage.StorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(MongoContainerConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class StreamingUploadTests {
+
+    private static final String BOUNDARY = "streaming-upload-boundary";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Test
+    void storesOnlyTheFirstFilePartOfASingleUpload() throws Exception {
+        byte[] first = TestFiles.pdf(4096);
+        byte[] second = TestFiles.pdf(4096);
+        String firstName = TestFiles.pdfName();
+        String secondName = TestFiles.pdfName();
+
+        mockMvc.perform(post("/api/v1/file/stream")
+                        .contentType("multipart/form-data; boundary=" + BOUNDARY)
+                        .content(multipart(firstName, first, secondName, second)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filename").value(firstName));
+
+        assertThat(storageService.existsByOriginalName(secondName)).isFalse();
+        FileMetadata metadata = storageService.findByOriginalName(firstName);
+        try (InputStream stored = storageService.loadAsResource(metadata).getInputStream()) {
+            assertThat(stored.readAllBytes()).isEqualTo(first);
+        }
+    }
+
+    private static byte[] multipart(String firstName, byte[] first, String secondName, byte[] second)
+            throws IOException {
+        var body = new ByteArrayOutputStream();
+        part(body, firstName, first);
+        part(body, secondName, second);
+        body.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static void part(ByteArrayOutputStream body, String filename, byte[] content) throws IOException {
+        String headers = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: " + TestFiles.PDF + "\r\n\r\n";
+        body.write(headers.getBytes(StandardCharsets.US_ASCII));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,129 @@
+package com.azvtech.file_management.processing;
+
+import com.azvtech.file_management.MongoContainerConfiguration;
+import com.azvtech.file_management.config.TestClock;
+import com.azvtech.file_management.config.TestFiles;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.ProcessingJob;
+import com.azvtech.file_management.repository.FileMetadataRepository;
+import com.azvtech.file_management.storage.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Drives the queue by hand: no workers run, failed jobs are due again at once, and
+ * leases run out when the test clock is advanced past them.
+ */
+@SpringBootTest(properties = {
+        "storage.jobs.types=VERIFY_CHECKSUM",
+        "storage.jobs.concurrency=0",
+        "storage.jobs.max-attempts=2",
+        "storage.jobs.retry-backoff=0s",
+        "storage.jobs.lease=5m"
+})
+@Import({MongoContainerConfiguration.class, TestClock.Configuration.class})
+@Testcontainers(disabledWithoutDocker = true)
+class ProcessingQueueTests {
+
+    @Autowired
+    private ProcessingQueue queue;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private FileMetadataRepository metadataRepo;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private TestClock clock;
+
+    @BeforeEach
+    void emptyQueue() {
+        mongoOperations.remove(new Query(), ProcessingJob.class);
+    }
+
+    @Test
+    void queuesVerificationOnlyForNewlyWrittenContent() {
+        byte[] content = TestFiles.pdf(4096);
+        FileMetadata first = store(content);
+        FileMetadata second = store(content);
+
+        assertThat(jobsOf(first)).singleElement().satisfies(job -> {
+            assertThat(job.type()).isEqualTo(ProcessingJob.Type.VERIFY_CHECKSUM);
+            assertThat(job.status()).isEqualTo(ProcessingJob.Status.PENDING);
+        });
+        assertThat(reload(first).jobs())
+                .containsEntry(ProcessingJob.Type.VERIFY_CHECKSUM, ProcessingJob.Status.PENDING);
+        assertThat(jobsOf(second)).isEmpty();
+    }
+
+    @Test
+    void retriesAFailedJobUntilItRunsOutOfAttempts() {
+        FileMetadata metadata = store(TestFiles.pdf(4096));
+
+        ProcessingJob firstAttempt = queue.claim().orElseThrow();
+        queue.failed(firstAttempt, metadata, "first");
+        assertThat(reload(metadata).jobs())
+                .containsEntry(ProcessingJob.Type.VERIFY_CHECKSUM, ProcessingJob.Status.PENDING);
+
+        ProcessingJob secondAttempt = queue.claim().orElseThrow();
+        assertThat(secondAttempt.attempts()).isEqualTo(2);
+        queue.failed(secondAttempt, metadata, "second");
+
+        assertThat(queue.claim()).isEmpty();
+        assertThat(jobsOf(metadata)).singleElement().satisfies(job -> {
+            assertThat(job.status()).isEqualTo(ProcessingJob.Status.FAILED);
+            assertThat(job.lastError()).isEqualTo("second");
+        });
+        assertThat(reload(metadata).jobs())
+                .containsEntry(ProcessingJob.Type.VERIFY_CHECKSUM, ProcessingJob.Status.FAILED);
+    }
+
+    @Test
+    void reclaimsAnExpiredLeaseAndIgnoresTheWorkerThatLostIt() {
+        FileMetadata metadata = store(TestFiles.pdf(4096));
+
+        ProcessingJob lost = queue.claim().orElseThrow();
+        assertThat(queue.claim()).isEmpty();
+        clock.advance(Duration.ofMinutes(5).plusSeconds(1));
+        ProcessingJob current = queue.claim().orElseThrow();
+        assertThat(current.id()).isEqualTo(lost.id());
+
+        queue.succeeded(lost, metadata);
+        assertThat(jobsOf(metadata)).singleElement()
+                .satisfies(job -> assertThat(job.status()).isEqualTo(ProcessingJob.Status.RUNNING));
+
+        queue.succeeded(current, metadata);
+        assertThat(jobsOf(metadata)).isEmpty();
+        assertThat(reload(metadata).jobs())
+                .containsEntry(ProcessingJob.Type.VERIFY_CHECKSUM, ProcessingJob.Status.SUCCEEDED);
+    }
+
+    private FileMetadata store(byte[] content) {
+        return storageService.findByOriginalName(TestFiles.storePdf(storageService, content));
+    }
+
+    private FileMetadata reload(FileMetadata metadata) {
+        return metadataRepo.findById(metadata.id()).orElseThrow();
+    }
+
+    private List<ProcessingJob> jobsOf(FileMetadata metadata) {
+        return mongoOperations.find(query(where("fileId").is(metadata.id())), ProcessingJob.class);
+    }
+}
@@ -0,0 +1,33 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.TestFiles;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteBufferResourceTests {
+
+    @Test
+    void transfersTheRestOfADirectBufferWithoutConsumingIt() throws IOException {
+        byte[] content = TestFiles.pdf(100_000);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(content.length).put(content).flip();
+        var resource = new ByteBufferResource(buffer, "test");
+
+        var out = new ByteArrayOutputStream();
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.skip(10)).isEqualTo(10);
+            assertThat(in.transferTo(out)).isEqualTo(content.length - 10);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+
+        assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(content, 10, content.length));
+        assertThat(buffer.remaining()).isEqualTo(content.length);
+        assertThat(resource.contentLength()).isEqualTo(content.length);
+    }
+}
@@ -0,0 +1,56 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.TestStorageProperties;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentCompressionTests {
+
+    private final ContentCompression compression = new ContentCompression(TestStorageProperties.of(Map.of(
+            "storage.compression.enabled", "true",
+            "storage.compression.content-types", "text/*",
+            "storage.compression.sample-size", "1KB"
+    )));
+
+    @Test
+    void deflatesCompressibleContentAndDecodesItBack() throws IOException {
+        byte[] content = "compressible line of text\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+        try (var encoded = compression.encode(new ByteArrayInputStream(content), "text/plain")) {
+            assertThat(encoded.encoding()).isEqualTo(ContentCompression.DEFLATE);
+            byte[] stored = encoded.content().readAllBytes();
+
+            assertThat(stored.length).isLessThan(content.length / 10);
+            assertThat(ContentCompression.decode(new ByteArrayInputStream(stored), encoded.encoding()).readAllBytes())
+                    .isEqualTo(content);
+        }
+    }
+
+    @Test
+    void storesIncompressibleSampleAsUploaded() throws IOException {
+        byte[] content = new byte[10_000];
+        new Random(42).nextBytes(content);
+
+        try (var encoded = compression.encode(new ByteArrayInputStream(content), "text/plain")) {
+            assertThat(encoded.encoding()).isNull();
+            assertThat(encoded.content().readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void skipsContentTypesNotConfigured() throws IOException {
+        byte[] content = "compressible line of text\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        try (var encoded = compression.encode(new ByteArrayInputStream(content), "image/png")) {
+            assertThat(encoded.encoding()).isNull();
+            assertThat(encoded.content().readAllBytes()).isEqualTo(content);
+        }
+    }
+}
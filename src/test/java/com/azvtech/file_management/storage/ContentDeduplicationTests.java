@@ -0,0 +1,89 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.MongoContainerConfiguration;
+import com.azvtech.file_management.config.TestFiles;
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.exception.StorageFileNotFoundException;
+import com.azvtech.file_management.model.ContentBlob;
+import com.azvtech.file_management.model.FileMetadata;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Import(MongoContainerConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class ContentDeduplicationTests {
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private GridFsService gridFsService;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Test
+    void sharesContentUntilTheLastReferenceIsDeleted() throws IOException {
+        byte[] content = TestFiles.pdf(4096);
+        String checksum = DigestUtils.sha256Hex(content);
+        String first = TestFiles.storePdf(storageService, content);
+        String second = TestFiles.storePdf(storageService, content);
+
+        FileMetadata firstMetadata = storageService.findByOriginalName(first);
+        FileMetadata secondMetadata = storageService.findByOriginalName(second);
+        assertThat(secondMetadata.gridFsId()).isEqualTo(firstMetadata.gridFsId());
+        assertThat(blob(checksum).referenceCount()).isEqualTo(2);
+
+        storageService.delete(first);
+        assertThat(blob(checksum).referenceCount()).isEqualTo(1);
+        try (InputStream stored = storageService.loadAsResource(secondMetadata).getInputStream()) {
+            assertThat(stored.readAllBytes()).isEqualTo(content);
+        }
+
+        storageService.delete(second);
+        assertThat(blob(checksum)).isNull();
+        assertThatThrownBy(() -> gridFsService.getResource(secondMetadata.gridFsId()))
+                .isInstanceOf(StorageFileNotFoundException.class);
+    }
+
+    @Test
+    void attachesStoredContentByChecksumOnlyUnderItsType() {
+        byte[] content = TestFiles.pdf(4096);
+        String checksum = DigestUtils.sha256Hex(content);
+        TestFiles.storePdf(storageService, content);
+
+        String pngName = TestFiles.pdfName().replace(".pdf", ".png");
+        assertThat(storageService.storeExisting(pngName, "image/png", checksum)).isFalse();
+        assertThat(storageService.storeExisting(TestFiles.pdfName(), TestFiles.PDF, checksum)).isTrue();
+        assertThat(blob(checksum).referenceCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsContentThatDoesNotMatchTheExpectedChecksum() {
+        byte[] content = TestFiles.pdf(4096);
+        String originalName = TestFiles.pdfName();
+
+        assertThatThrownBy(() -> storageService.store(originalName, TestFiles.PDF, content.length,
+                new ByteArrayInputStream(content), DigestUtils.sha256Hex("other")))
+                .isInstanceOf(StorageException.InvalidFileException.class);
+        assertThat(storageService.existsByOriginalName(originalName)).isFalse();
+        assertThat(blob(DigestUtils.sha256Hex(content))).isNull();
+    }
+
+    private ContentBlob blob(String checksum) {
+        return mongoOperations.findById(checksum, ContentBlob.class);
+    }
+}
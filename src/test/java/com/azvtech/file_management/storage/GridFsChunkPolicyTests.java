@@ -0,0 +1,39 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.TestStorageProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GridFsChunkPolicyTests {
+
+    private final GridFsChunkPolicy policy = new GridFsChunkPolicy(TestStorageProperties.of(Map.of(
+            "storage.grid-fs.chunk-size[image/*]", "64KB",
+            "storage.grid-fs.chunk-size[image/png]", "128KB",
+            "storage.grid-fs.large-file-threshold", "8MB",
+            "storage.grid-fs.large-file-chunk-size", "2MB",
+            "storage.grid-fs.write-batch-size", "4MB"
+    )));
+
+    @Test
+    void prefersExactTypeOverWildcardOverDefault() {
+        assertThat(policy.chunkSize("image/png", 1000)).isEqualTo(128 * 1024);
+        assertThat(policy.chunkSize("image/jpeg", 1000)).isEqualTo(64 * 1024);
+        assertThat(policy.chunkSize("application/pdf", 1000)).isEqualTo(255 * 1024);
+        assertThat(policy.chunkSize(null, -1)).isEqualTo(255 * 1024);
+    }
+
+    @Test
+    void raisesChunkSizeForLargeFiles() {
+        assertThat(policy.chunkSize("application/pdf", 8 * 1024 * 1024)).isEqualTo(2 * 1024 * 1024);
+        assertThat(policy.chunkSize("application/pdf", -1)).isEqualTo(255 * 1024);
+    }
+
+    @Test
+    void batchesChunksUpToWriteBatchSize() {
+        assertThat(policy.chunksPerBatch(1024 * 1024)).isEqualTo(4);
+        assertThat(policy.chunksPerBatch(8 * 1024 * 1024)).isEqualTo(1);
+    }
+}
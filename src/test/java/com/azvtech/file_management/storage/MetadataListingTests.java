@@ -0,0 +1,102 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.MongoContainerConfiguration;
+import com.azvtech.file_management.config.TestFiles;
+import com.azvtech.file_management.dto.request.FileSearchCriteria;
+import com.azvtech.file_management.dto.response.FilePageDto;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.repository.FileMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Import(MongoContainerConfiguration.class)
+@Testcontainers(disabledWithoutDocker = true)
+class MetadataListingTests {
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private FileMetadataRepository metadataRepo;
+
+    private String contentType;
+    private List<FileMetadata> stored;
+
+    @BeforeEach
+    void storeMetadata() {
+        // A type of its own keeps other tests' files out of the listing
+        contentType = "application/x-listing-" + UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<FileMetadata> files = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Files 2 to 4 share an upload date, so their order falls back to the id
+            LocalDateTime uploadDate = i >= 2 && i <= 4 ? now.minusMinutes(2) : now.minusMinutes(i);
+            files.add(FileMetadata.builder()
+                    .originalName(TestFiles.pdfName())
+                    .contentType(contentType)
+                    .size(1000L * (i + 1))
+                    .uploadDate(uploadDate)
+                    .build());
+        }
+        stored = metadataRepo.saveAll(files);
+    }
+
+    @Test
+    void pagesThroughEveryFileOnceNewestFirst() {
+        FileSearchCriteria criteria = new FileSearchCriteria(contentType, null, null, null, null);
+        List<String> listed = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            FilePageDto page = storageService.listMetadata(criteria, cursor, 3);
+            page.items().forEach(metadata -> listed.add(metadata.id()));
+            pageSizes.add(page.items().size());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(pageSizes).containsExactly(3, 3, 1);
+        assertThat(listed).containsExactlyElementsOf(stored.stream()
+                .sorted(Comparator.comparing(FileMetadata::uploadDate).thenComparing(FileMetadata::id).reversed())
+                .map(FileMetadata::id)
+                .toList());
+    }
+
+    @Test
+    void endsWithoutACursorWhenEverythingFitsOnOnePage() {
+        FilePageDto page = storageService.listMetadata(
+                new FileSearchCriteria(contentType, null, null, null, null), null, 7);
+
+        assertThat(page.items()).hasSize(7);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void appliesFiltersAcrossPages() {
+        FileSearchCriteria criteria = new FileSearchCriteria(contentType, 2000L, 5000L, null, null);
+
+        FilePageDto first = storageService.listMetadata(criteria, null, 2);
+        FilePageDto second = storageService.listMetadata(criteria, first.nextCursor(), 2);
+
+        assertThat(first.items()).hasSize(2);
+        assertThat(second.items()).hasSize(2);
+        assertThat(second.nextCursor()).isNull();
+        assertThat(first.items()).extracting(FileMetadata::size)
+                .allSatisfy(size -> assertThat(size).isBetween(2000L, 5000L));
+        assertThat(second.items()).extracting(FileMetadata::size)
+                .allSatisfy(size -> assertThat(size).isBetween(2000L, 5000L));
+    }
+}
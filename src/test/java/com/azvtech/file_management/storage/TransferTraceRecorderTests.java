@@ -0,0 +1,52 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.config.TestStorageProperties;
+import com.azvtech.file_management.dto.response.TransferTraceDto;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferTraceRecorderTests {
+
+    private final TransferTraceRecorder recorder = new TransferTraceRecorder(
+            TestStorageProperties.of(Map.of("storage.tracing.slow-threshold", "0ms")));
+    private final ObservationRegistry registry = ObservationRegistry.create();
+
+    TransferTraceRecorderTests() {
+        registry.observationConfig().observationHandler(recorder);
+    }
+
+    @Test
+    void collectsStorageSpansUnderTheRequest() {
+        Observation request = Observation.start("http.server.requests", registry);
+        try (Observation.Scope scope = request.openScope()) {
+            StorageObservation.run(registry, StorageObservation.DOWNLOAD, download -> {
+                StorageObservation.attribute(download, StorageObservation.FILE_SIZE, 2048);
+                StorageObservation.observe(registry, StorageObservation.METADATA_LOOKUP, lookup -> "found");
+            });
+        }
+        assertThat(recorder.recent()).isEmpty();
+        request.stop();
+
+        assertThat(recorder.recent()).singleElement().satisfies(trace -> {
+            assertThat(trace.name()).isEqualTo("http.server.requests");
+            assertThat(trace.spans()).extracting(TransferTraceDto.Span::name)
+                    .containsExactly(StorageObservation.DOWNLOAD, StorageObservation.METADATA_LOOKUP);
+            assertThat(trace.spans().get(0).attributes())
+                    .containsEntry(StorageObservation.FILE_SIZE, "2048")
+                    .containsEntry("mongo.commands", "0");
+            assertThat(trace.spans().get(1).parent()).isEqualTo(StorageObservation.DOWNLOAD);
+        });
+    }
+
+    @Test
+    void ignoresRequestsWithoutStorageWork() {
+        Observation.start("http.server.requests", registry).stop();
+
+        assertThat(recorder.recent()).isEmpty();
+    }
+}
@@ -0,0 +1,172 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.MongoContainerConfiguration;
+import com.azvtech.file_management.config.TestClock;
+import com.azvtech.file_management.config.TestFiles;
+import com.azvtech.file_management.exception.StorageException;
+import com.azvtech.file_management.model.FileMetadata;
+import com.azvtech.file_management.model.UploadSession;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "storage.grid-fs.chunk-size[application/pdf]=1KB",
+        "storage.grid-fs.write-batch-size=1KB",
+        "storage.upload-sessions.part-size=2KB",
+        "storage.upload-sessions.part-lease=1m"
+})
+@Import({MongoContainerConfiguration.class, TestClock.Configuration.class})
+@Testcontainers(disabledWithoutDocker = true)
+class UploadSessionServiceTests {
+
+    private static final int PART_SIZE = 2048;
+
+    @Autowired
+    private UploadSessionService uploadSessions;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private TestClock clock;
+
+    @Test
+    void assemblesPartsReceivedInAnyOrder() throws IOException {
+        byte[] content = TestFiles.pdf(5 * 1024 + 100);
+        UploadSession session = create(content);
+        assertThat(session.partCount()).isEqualTo(3);
+
+        for (int part : new int[]{2, 0, 1}) {
+            uploadSessions.uploadPart(session.id(), part, part(content, part));
+        }
+        uploadSessions.commit(session.id());
+
+        assertStored(session.originalName(), content);
+    }
+
+    @Test
+    void checksumOfPartsHashedAsTheyArriveMatchesTheContent() throws IOException {
+        byte[] content = TestFiles.pdf(4 * 1024 + 1);
+        UploadSession session = create(content);
+
+        for (int part = 0; part < session.partCount(); part++) {
+            uploadSessions.uploadPart(session.id(), part, part(content, part));
+        }
+        uploadSessions.commit(session.id());
+
+        assertThat(storageService.findByOriginalName(session.originalName()).checksum())
+                .isEqualTo(DigestUtils.sha256Hex(content));
+        assertStored(session.originalName(), content);
+    }
+
+    @Test
+    void keepsTheRetryWhenAnAttemptOutlivesItsLease() throws Exception {
+        byte[] content = TestFiles.pdf(3 * 1024);
+        byte[] stale = content.clone();
+        Arrays.fill(stale, PART_SIZE, stale.length, (byte) 'x');
+        UploadSession session = create(content);
+        uploadSessions.uploadPart(session.id(), 0, part(content, 0));
+
+        var stalled = new StalledStream(part(stale, 1), 1024);
+        CompletableFuture<UploadSession> first = CompletableFuture.supplyAsync(
+                () -> uploadSessions.uploadPart(session.id(), 1, stalled));
+        assertThat(stalled.reached.await(30, TimeUnit.SECONDS)).isTrue();
+        clock.advance(Duration.ofMinutes(1).plusSeconds(1));
+
+        uploadSessions.uploadPart(session.id(), 1, part(content, 1));
+        stalled.release.countDown();
+
+        assertThatThrownBy(first::join).hasCauseInstanceOf(StorageException.ConflictException.class);
+        uploadSessions.commit(session.id());
+        assertStored(session.originalName(), content);
+    }
+
+    @Test
+    void rejectsAPartLongerThanItsSlot() {
+        byte[] content = TestFiles.pdf(3 * 1024);
+        UploadSession session = create(content);
+        byte[] oversized = Arrays.copyOf(content, PART_SIZE + 1);
+
+        assertThatThrownBy(() -> uploadSessions.uploadPart(session.id(), 0, new ByteArrayInputStream(oversized)))
+                .isInstanceOf(StorageException.InvalidFileException.class);
+        assertThat(uploadSessions.missingParts(uploadSessions.find(session.id()))).containsExactly(0, 1);
+    }
+
+    @Test
+    void refusesToCommitWithMissingParts() {
+        byte[] content = TestFiles.pdf(3 * 1024);
+        UploadSession session = create(content);
+        uploadSessions.uploadPart(session.id(), 1, part(content, 1));
+
+        assertThatThrownBy(() -> uploadSessions.commit(session.id()))
+                .isInstanceOf(StorageException.InvalidFileException.class)
+                .hasMessageContaining("starting with part 0");
+    }
+
+    private UploadSession create(byte[] content) {
+        return uploadSessions.create(TestFiles.pdfName(), TestFiles.PDF, content.length);
+    }
+
+    private void assertStored(String originalName, byte[] content) throws IOException {
+        FileMetadata metadata = storageService.findByOriginalName(originalName);
+        try (InputStream stored = storageService.loadAsResource(metadata).getInputStream()) {
+            assertThat(stored.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    private static InputStream part(byte[] content, int part) {
+        int from = part * PART_SIZE;
+        return new ByteArrayInputStream(content, from, Math.min(PART_SIZE, content.length - from));
+    }
+
+    /**
+     * Passes on the first {@code stallAt} bytes, then blocks until released.
+     */
+    private static final class StalledStream extends FilterInputStream {
+        final CountDownLatch reached = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private int remaining;
+
+        StalledStream(InputStream in, int stallAt) {
+            super(in);
+            this.remaining = stallAt;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                reached.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                remaining = -1;
+            }
+            int n = super.read(b, off, remaining > 0 ? Math.min(len, remaining) : len);
+            if (remaining > 0 && n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.azvtech.file_management.storage;
+
+import com.azvtech.file_management.exception.StorageException;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UploadStreamTests {
+
+    @Test
+    void digestsCountsAndCapturesHeadInOnePass() throws IOException {
+        byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+        AtomicReference<byte[]> head = new AtomicReference<>();
+
+        try (var upload = new UploadStream(new ByteArrayInputStream(content), 16, head::set)) {
+            upload.transferTo(OutputStream.nullOutputStream());
+
+            assertThat(upload.bytesRead()).isEqualTo(content.length);
+            assertThat(upload.checksum()).isEqualTo(DigestUtils.sha256Hex(content));
+        }
+        assertThat(head.get()).hasSize(16).containsExactly(Arrays.copyOf(content, 16));
+    }
+
+    @Test
+    void inspectsShortContentAtEndOfStream() throws IOException {
+        AtomicReference<byte[]> head = new AtomicReference<>();
+
+        try (var upload = new UploadStream(new ByteArrayInputStream(new byte[]{1, 2, 3}), 16, head::set)) {
+            upload.transferTo(OutputStream.nullOutputStream());
+        }
+        assertThat(head.get()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void rejectedHeadSurfacesAsIOException() {
+        var upload = new UploadStream(new ByteArrayInputStream(new byte[0]), 16, head -> {
+            throw new StorageException.InvalidFileException("Empty file not allowed");
+        });
+
+        assertThatThrownBy(() -> upload.transferTo(OutputStream.nullOutputStream()))
+                .isInstanceOf(UploadStream.UploadRejectedException.class)
+                .hasMessage("Empty file not allowed");
+    }
+}
@@ -0,0 +1,62 @@
+package com.azvtech.file_management.validation;
+
+import com.azvtech.file_management.exception.StorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileValidatorTests {
+
+    private static final byte[] PNG_HEAD = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+    private static final byte[] JPEG_HEAD = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16};
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FileValidator validator = new FileValidator(
+            Set.of("image/jpeg", "image/png", "application/pdf"), Set.of("jpg", "jpeg", "png", "pdf"), 1024,
+            meterRegistry);
+
+    @Test
+    void acceptsContentCarryingTheDeclaredSignature() {
+        assertThatCode(() -> validator.validateContent("image/png", PNG_HEAD)).doesNotThrowAnyException();
+        assertThatCode(() -> validator.validateContent("image/jpeg", JPEG_HEAD)).doesNotThrowAnyException();
+        assertThatCode(() -> validator.validateContent("application/pdf",
+                "\n%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void rejectsContentOfAnotherType() {
+        assertThatThrownBy(() -> validator.validateContent("image/png", JPEG_HEAD))
+                .isInstanceOf(StorageException.InvalidFileException.class)
+                .hasMessageContaining("image/jpeg");
+        assertThatThrownBy(() -> validator.validateContent("application/pdf",
+                "<html></html>".getBytes(StandardCharsets.US_ASCII)))
+                .isInstanceOf(StorageException.InvalidFileException.class);
+    }
+
+    @Test
+    void rejectsEmptyContent() {
+        assertThatThrownBy(() -> validator.validateContent("image/png", new byte[0]))
+                .isInstanceOf(StorageException.InvalidFileException.class);
+    }
+
+    @Test
+    void countsRejectionsByReason() {
+        assertThatThrownBy(() -> validator.validate("big.png", "image/png", 4096)).isInstanceOf(StorageException.class);
+        assertThatThrownBy(() -> validator.validate("notes.png", "image/jpeg", 10)).isInstanceOf(StorageException.class);
+        assertThatThrownBy(() -> validator.validateContent("image/png", JPEG_HEAD)).isInstanceOf(StorageException.class);
+
+        assertThat(rejected("too-large")).isEqualTo(1);
+        assertThat(rejected("extension-mismatch")).isEqualTo(1);
+        assertThat(rejected("content-mismatch")).isEqualTo(1);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.counter(FileValidator.REJECTED_METRIC, "reason", reason).count();
+    }
+}